@@ -0,0 +1,41 @@
+package com.foodorder.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+/**
+ * Runs the benchmarks reporting throughput, average latency and, through the
+ * GC profiler, allocation rate per operation.
+ * 
+ * Command line arguments are parsed as standard JMH options, so a benchmark
+ * regex and -p parameter overrides can narrow the run, and -bm replaces the
+ * default modes.
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .parent(commandLine)
+                .timeUnit(TimeUnit.MICROSECONDS)
+                .warmupIterations(3)
+                .warmupTime(TimeValue.seconds(1))
+                .measurementIterations(5)
+                .measurementTime(TimeValue.seconds(1))
+                .forks(1)
+                .addProfiler(GCProfiler.class);
+        if (commandLine.getBenchModes().isEmpty()) {
+            // Modes given with -bm, e.g. sample for latency percentiles, replace the defaults
+            options.mode(Mode.Throughput).mode(Mode.AverageTime);
+        }
+        new Runner(options.build()).run();
+    }
+}
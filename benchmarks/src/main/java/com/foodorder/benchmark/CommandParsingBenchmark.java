@@ -0,0 +1,69 @@
+package com.foodorder.benchmark;
+
+import com.foodorder.command.Command;
+import com.foodorder.command.CommandFactory;
+import com.foodorder.service.OrderService;
+import com.foodorder.service.RestaurantService;
+import com.foodorder.strategy.LowestPriceStrategy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Parsing cost of command lines with the single-pass parser ("streaming") and the
+ * original split/regex parser ("legacy"). Commands are only created, never executed.
+ */
+@State(Scope.Thread)
+public class CommandParsingBenchmark {
+    private static final int LINES = 1024;
+
+    @Param({"streaming", "legacy"})
+    public String parser;
+
+    @Param({"3", "20", "100"})
+    public int menuSize;
+
+    private CommandFactory commandFactory;
+    private LegacyCommandParser legacyParser;
+    private boolean legacy;
+    private List<String> onboardLines;
+    private List<String> placeOrderLines;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(Fleet.SEED);
+        RestaurantService restaurantService = new RestaurantService();
+        OrderService orderService = new OrderService(restaurantService, new LowestPriceStrategy());
+        commandFactory = new CommandFactory(restaurantService, orderService);
+        legacyParser = new LegacyCommandParser(restaurantService, orderService);
+        legacy = "legacy".equals(parser);
+        
+        onboardLines = new ArrayList<>(LINES);
+        placeOrderLines = new ArrayList<>(LINES);
+        List<List<String>> baskets = Fleet.baskets(LINES, 3, menuSize, random);
+        for (int i = 0; i < LINES; i++) {
+            onboardLines.add(Fleet.onboardLine(i, "restaurant" + i, menuSize, random));
+            placeOrderLines.add(i + ", place-order, order" + i + ", " + String.join(", ", baskets.get(i)));
+        }
+    }
+
+    @Benchmark
+    public Command parseOnboardRestaurant() {
+        return parse(onboardLines.get(next++ & (LINES - 1)));
+    }
+
+    @Benchmark
+    public Command parsePlaceOrder() {
+        return parse(placeOrderLines.get(next++ & (LINES - 1)));
+    }
+
+    private Command parse(String line) {
+        return legacy ? legacyParser.createCommand(line) : commandFactory.createCommand(line);
+    }
+}
@@ -0,0 +1,44 @@
+package com.foodorder.benchmark;
+
+import com.foodorder.model.Order;
+import com.foodorder.service.OrderService;
+import com.foodorder.service.RestaurantService;
+import com.foodorder.strategy.LowestPriceStrategy;
+import java.util.List;
+import java.util.Random;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Cost of listing dispatched orders against a history where a tenth of
+ * all placed orders have been dispatched.
+ */
+@State(Scope.Benchmark)
+public class DispatchedOrdersBenchmark {
+    @Param({"1000", "100000"})
+    public int historySize;
+
+    private OrderService orderService;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(Fleet.SEED);
+        RestaurantService restaurantService = Fleet.onboard(100, 10, Integer.MAX_VALUE, random);
+        orderService = new OrderService(restaurantService, new LowestPriceStrategy());
+        List<List<String>> baskets = Fleet.baskets(historySize, 1, 10, random);
+        for (int i = 0; i < historySize; i++) {
+            String orderId = "order" + i;
+            if (orderService.placeOrder(orderId, baskets.get(i)) != null && i % 10 == 0) {
+                orderService.dispatchOrder(orderId);
+            }
+        }
+    }
+
+    @Benchmark
+    public List<Order> getDispatchedOrders() {
+        return orderService.getDispatchedOrders();
+    }
+}
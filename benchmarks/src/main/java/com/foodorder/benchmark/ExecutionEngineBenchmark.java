@@ -0,0 +1,99 @@
+package com.foodorder.benchmark;
+
+import com.foodorder.command.CommandProcessor;
+import com.foodorder.command.DispatchOrderCommand;
+import com.foodorder.command.PlaceOrderCommand;
+import com.foodorder.command.ResultSink;
+import com.foodorder.command.RingBufferEngine;
+import com.foodorder.service.OrderService;
+import com.foodorder.service.RestaurantService;
+import com.foodorder.strategy.StrategyFactory;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * Place-and-dispatch command pairs submitted by several threads, executed by:
+ * the CommandProcessor's PriorityQueue drain, each caller directly against the
+ * lock-based services, or the single-writer ring buffer engine. Every operation
+ * waits for its own dispatch to complete, so sample mode (-bm sample) gives the
+ * round-trip tail latency. Services are rebuilt every iteration so the order
+ * history does not grow across iterations.
+ */
+@State(Scope.Benchmark)
+@Threads(4)
+public class ExecutionEngineBenchmark {
+    private static final int BASKETS = 1024;
+    private static final ResultSink DISCARD = (command, result) -> { };
+
+    @Param({"priority-queue", "lock-based", "ring-buffer"})
+    public String mode;
+
+    @Param({"1000"})
+    public int restaurantCount;
+
+    @Param({"20"})
+    public int menuSize;
+
+    @Param({"2"})
+    public int orderSize;
+
+    private OrderService orderService;
+    private List<List<String>> baskets;
+    private CommandProcessor processor;
+    private RingBufferEngine engine;
+    private AtomicLong nextOrder;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        Random random = new Random(Fleet.SEED);
+        RestaurantService restaurantService = Fleet.onboard(restaurantCount, menuSize, 4, random);
+        orderService = new OrderService(restaurantService, StrategyFactory.createStrategy("lowest-price"));
+        baskets = Fleet.baskets(BASKETS, orderSize, menuSize, random);
+        processor = new CommandProcessor();
+        engine = new RingBufferEngine(RingBufferEngine.DEFAULT_BUFFER_SIZE, DISCARD);
+        engine.start("benchmark-engine");
+        nextOrder = new AtomicLong();
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        engine.close();
+    }
+
+    @Benchmark
+    public void placeAndDispatch() {
+        long next = nextOrder.getAndIncrement();
+        String orderId = "order" + next;
+        // Distinct timestamps keep the dispatch after its placement in the PriorityQueue
+        PlaceOrderCommand place = new PlaceOrderCommand(orderService, orderId,
+                baskets.get((int) next & (BASKETS - 1)), 2 * next);
+        DispatchOrderCommand dispatch = new DispatchOrderCommand(orderService, orderId, 2 * next + 1);
+        
+        switch (mode) {
+            case "priority-queue":
+                processor.addCommand(place);
+                processor.addCommand(dispatch);
+                processor.executeAll(DISCARD);
+                break;
+            case "lock-based":
+                place.execute();
+                dispatch.execute();
+                break;
+            case "ring-buffer":
+                engine.publish(place);
+                engine.awaitCompletion(engine.publish(dispatch));
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown mode: " + mode);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.foodorder.benchmark;
+
+import com.foodorder.model.MenuItem;
+import com.foodorder.service.RestaurantService;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic synthetic fleets, baskets and command lines shared by the benchmarks.
+ * 
+ * Menus are drawn from a catalog twice the menu size, so each restaurant serves
+ * roughly half of the catalog and an order of n items matches about 1 in 2^n restaurants.
+ */
+final class Fleet {
+    static final long SEED = 42L;
+
+    private Fleet() {
+    }
+
+    static String itemId(int index) {
+        return "item" + index;
+    }
+
+    static int catalogSize(int menuSize) {
+        return menuSize * 2;
+    }
+
+    /**
+     * Onboard restaurantCount restaurants with random menus of menuSize items.
+     */
+    static RestaurantService onboard(int restaurantCount, int menuSize, int capacity, Random random) {
+        RestaurantService restaurantService = new RestaurantService();
+        for (int r = 0; r < restaurantCount; r++) {
+            restaurantService.onboardRestaurant("restaurant" + r, menu(menuSize, random), capacity);
+        }
+        return restaurantService;
+    }
+
+    static List<MenuItem> menu(int menuSize, Random random) {
+        List<MenuItem> menu = new ArrayList<>(menuSize);
+        for (int index : sample(menuSize, catalogSize(menuSize), random)) {
+            menu.add(new MenuItem(itemId(index), 10 + random.nextInt(90)));
+        }
+        return menu;
+    }
+
+    /**
+     * Generate count baskets of orderSize distinct items each.
+     */
+    static List<List<String>> baskets(int count, int orderSize, int menuSize, Random random) {
+        List<List<String>> baskets = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            List<String> basket = new ArrayList<>(orderSize);
+            for (int index : sample(orderSize, catalogSize(menuSize), random)) {
+                basket.add(itemId(index));
+            }
+            baskets.add(basket);
+        }
+        return baskets;
+    }
+
+    /**
+     * Render an onboard-restaurant command line with a random menu.
+     */
+    static String onboardLine(long timestamp, String restaurantId, int menuSize, Random random) {
+        StringBuilder line = new StringBuilder();
+        line.append(timestamp).append(", onboard-restaurant, ").append(restaurantId).append(", [");
+        List<MenuItem> menu = menu(menuSize, random);
+        for (int i = 0; i < menu.size(); i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            line.append('(').append(menu.get(i).getItemId()).append(", ")
+                .append((int) menu.get(i).getPrice()).append(')');
+        }
+        return line.append("], ").append(1 + random.nextInt(10)).toString();
+    }
+
+    private static List<Integer> sample(int size, int range, Random random) {
+        List<Integer> indices = new ArrayList<>(range);
+        for (int i = 0; i < range; i++) {
+            indices.add(i);
+        }
+        Collections.shuffle(indices, random);
+        return indices.subList(0, Math.min(size, range));
+    }
+}
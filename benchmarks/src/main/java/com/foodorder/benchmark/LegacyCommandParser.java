@@ -0,0 +1,75 @@
+package com.foodorder.benchmark;
+
+import com.foodorder.command.ChangeStrategyCommand;
+import com.foodorder.command.Command;
+import com.foodorder.command.DispatchOrderCommand;
+import com.foodorder.command.ListDispatchedOrdersCommand;
+import com.foodorder.command.ListItemsCommand;
+import com.foodorder.command.OnboardRestaurantCommand;
+import com.foodorder.command.PlaceOrderCommand;
+import com.foodorder.command.UpdatePriceCommand;
+import com.foodorder.service.OrderService;
+import com.foodorder.service.RestaurantService;
+
+/**
+ * The original split/substring based command parser, kept as a baseline for
+ * comparison with the single-pass parser in CommandFactory.
+ */
+final class LegacyCommandParser {
+    private final RestaurantService restaurantService;
+    private final OrderService orderService;
+
+    LegacyCommandParser(RestaurantService restaurantService, OrderService orderService) {
+        this.restaurantService = restaurantService;
+        this.orderService = orderService;
+    }
+
+    Command createCommand(String input) {
+        String[] parts = input.split(",", 3);
+        if (parts.length < 2) {
+            throw new IllegalArgumentException("Invalid command format: " + input);
+        }
+        
+        long timestamp = Long.parseLong(parts[0].trim());
+        String commandType = parts[1].trim();
+        String args = parts.length > 2 ? parts[2] : "";
+        
+        switch (commandType) {
+            case "onboard-restaurant":
+                return createOnboardRestaurantCommand(input, timestamp);
+            case "update-price": {
+                String[] fields = args.split(",", 3);
+                return new UpdatePriceCommand(restaurantService, fields[0].trim(), fields[1].trim(),
+                        Double.parseDouble(fields[2].trim()), timestamp);
+            }
+            case "place-order": {
+                String[] fields = args.split(",", 2);
+                return new PlaceOrderCommand(orderService, fields[0].trim(), fields[1].trim(), timestamp);
+            }
+            case "dispatch-order":
+                return new DispatchOrderCommand(orderService, args.trim(), timestamp);
+            case "list-items":
+                return new ListItemsCommand(restaurantService, args.trim(), timestamp);
+            case "list-dispatched-orders":
+                return new ListDispatchedOrdersCommand(orderService, timestamp);
+            case "change-strategy":
+                return new ChangeStrategyCommand(orderService, args.trim(), timestamp);
+            default:
+                throw new IllegalArgumentException("Unknown command type: " + commandType);
+        }
+    }
+
+    private OnboardRestaurantCommand createOnboardRestaurantCommand(String input, long timestamp) {
+        int firstCommaIndex = input.indexOf(',');
+        int secondCommaIndex = input.indexOf(',', firstCommaIndex + 1);
+        int thirdCommaIndex = input.indexOf(',', secondCommaIndex + 1);
+        int closingBracketIndex = input.lastIndexOf(']');
+        int fourthCommaIndex = input.indexOf(',', closingBracketIndex);
+        
+        String restaurantId = input.substring(secondCommaIndex + 1, thirdCommaIndex).trim();
+        String menuItemsStr = input.substring(thirdCommaIndex + 1, fourthCommaIndex).trim();
+        int maxProcessingCapacity = Integer.parseInt(input.substring(fourthCommaIndex + 1).trim());
+        
+        return new OnboardRestaurantCommand(restaurantService, restaurantId, menuItemsStr, maxProcessingCapacity, timestamp);
+    }
+}
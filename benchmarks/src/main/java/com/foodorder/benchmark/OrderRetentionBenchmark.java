@@ -0,0 +1,79 @@
+package com.foodorder.benchmark;
+
+import com.foodorder.model.Order;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Build and retain a large order history, as a long-running system does. Item IDs
+ * are fresh strings per order, as they are when parsed from commands. GC time is
+ * reported by the GC profiler; the retained heap per order is printed after each
+ * iteration.
+ */
+@State(Scope.Benchmark)
+public class OrderRetentionBenchmark {
+    @Param({"1000000"})
+    public int orderCount;
+
+    private List<List<String>> baskets;
+    private String[] orderIds;
+    private String[] restaurantIds;
+    private Order[] history;
+    private long heapBefore;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        baskets = Fleet.baskets(1024, 3, 20, new Random(Fleet.SEED));
+        orderIds = new String[orderCount];
+        for (int i = 0; i < orderCount; i++) {
+            orderIds[i] = "order" + i;
+        }
+        restaurantIds = new String[100];
+        for (int i = 0; i < restaurantIds.length; i++) {
+            restaurantIds[i] = "restaurant" + i;
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void measureHeapBefore() {
+        history = null;
+        heapBefore = usedHeap();
+    }
+
+    @Benchmark
+    public Order[] buildHistory() {
+        Order[] orders = new Order[orderCount];
+        for (int i = 0; i < orderCount; i++) {
+            List<String> basket = new ArrayList<>(3);
+            for (String item : baskets.get(i & 1023)) {
+                basket.add(new String(item));
+            }
+            orders[i] = new Order(orderIds[i], basket, restaurantIds[i % restaurantIds.length], 10 + (i % 100) * 0.5);
+        }
+        history = orders;
+        return orders;
+    }
+
+    @TearDown(Level.Iteration)
+    public void reportRetainedHeap() {
+        // The order IDs are shared across iterations and not counted
+        long retained = usedHeap() - heapBefore - 16 - 4L * orderCount;
+        System.out.printf("%nRetained heap: %.1f bytes/order%n", retained / (double) orderCount);
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
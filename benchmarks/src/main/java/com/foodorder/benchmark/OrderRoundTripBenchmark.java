@@ -0,0 +1,59 @@
+package com.foodorder.benchmark;
+
+import com.foodorder.model.Order;
+import com.foodorder.service.OrderService;
+import com.foodorder.service.RestaurantService;
+import com.foodorder.strategy.StrategyFactory;
+import java.util.List;
+import java.util.Random;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Place an order and immediately dispatch it. Services are rebuilt every
+ * iteration so the order history does not grow across iterations.
+ */
+@State(Scope.Thread)
+public class OrderRoundTripBenchmark {
+    private static final int BASKETS = 1024;
+
+    @Param({"lowest-price", "highest-capacity", "highest-capacity-indexed"})
+    public String strategy;
+
+    @Param({"100", "1000", "10000"})
+    public int restaurantCount;
+
+    @Param({"20"})
+    public int menuSize;
+
+    @Param({"1", "3"})
+    public int orderSize;
+
+    private OrderService orderService;
+    private List<List<String>> baskets;
+    private int next;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        Random random = new Random(Fleet.SEED);
+        RestaurantService restaurantService = Fleet.onboard(restaurantCount, menuSize, 4, random);
+        orderService = new OrderService(restaurantService, StrategyFactory.createStrategy(strategy));
+        baskets = Fleet.baskets(BASKETS, orderSize, menuSize, random);
+        next = 0;
+    }
+
+    @Benchmark
+    public Order placeAndDispatch() {
+        String orderId = "order" + next;
+        List<String> basket = baskets.get(next++ & (BASKETS - 1));
+        Order order = orderService.placeOrder(orderId, basket);
+        if (order != null) {
+            orderService.dispatchOrder(orderId);
+        }
+        return order;
+    }
+}
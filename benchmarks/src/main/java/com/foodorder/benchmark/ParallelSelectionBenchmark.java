@@ -0,0 +1,66 @@
+package com.foodorder.benchmark;
+
+import com.foodorder.model.Restaurant;
+import com.foodorder.service.RestaurantService;
+import com.foodorder.strategy.HighestCapacityStrategy;
+import com.foodorder.strategy.LowestPriceStrategy;
+import com.foodorder.strategy.RestaurantSelectionStrategy;
+import java.util.List;
+import java.util.Random;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Sequential against fork-join evaluation of a full-fleet candidate list, to find
+ * the fleet size from which parallel selection pays off (the
+ * foodorder.parallelThreshold default). The crossover depends on the core count;
+ * with a single core the parallel mode falls back to the sequential loop.
+ */
+@State(Scope.Thread)
+public class ParallelSelectionBenchmark {
+    private static final int BASKETS = 1024;
+
+    @Param({"lowest-price", "highest-capacity"})
+    public String strategy;
+
+    @Param({"sequential", "parallel"})
+    public String mode;
+
+    @Param({"1000", "5000", "20000", "100000"})
+    public int restaurantCount;
+
+    @Param({"2"})
+    public int orderSize;
+
+    private RestaurantSelectionStrategy selectionStrategy;
+    private List<Restaurant> candidates;
+    private List<List<String>> baskets;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(Fleet.SEED);
+        int menuSize = 10;
+        RestaurantService restaurantService = Fleet.onboard(restaurantCount, menuSize, Integer.MAX_VALUE, random);
+        candidates = restaurantService.getAllRestaurants();
+        baskets = Fleet.baskets(BASKETS, orderSize, menuSize, random);
+        
+        int parallelThreshold = "parallel".equals(mode) ? 0 : Integer.MAX_VALUE;
+        if ("lowest-price".equals(strategy)) {
+            selectionStrategy = new LowestPriceStrategy(parallelThreshold);
+        } else if ("highest-capacity".equals(strategy)) {
+            selectionStrategy = new HighestCapacityStrategy(parallelThreshold);
+        } else {
+            throw new IllegalArgumentException("Unknown strategy: " + strategy);
+        }
+    }
+
+    @Benchmark
+    public Restaurant selectRestaurant() {
+        List<String> basket = baskets.get(next++ & (BASKETS - 1));
+        return selectionStrategy.selectRestaurant(candidates, basket);
+    }
+}
@@ -0,0 +1,53 @@
+package com.foodorder.benchmark;
+
+import com.foodorder.model.Restaurant;
+import com.foodorder.service.RestaurantService;
+import com.foodorder.strategy.RestaurantSelectionStrategy;
+import com.foodorder.strategy.StrategyFactory;
+import java.util.List;
+import java.util.Random;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Restaurant selection cost of each strategy against a static fleet.
+ * Capacity is unbounded so selection never changes restaurant state.
+ */
+@State(Scope.Thread)
+public class SelectionBenchmark {
+    private static final int BASKETS = 1024;
+
+    @Param({"lowest-price", "highest-capacity", "highest-capacity-indexed"})
+    public String strategy;
+
+    @Param({"100", "1000", "10000"})
+    public int restaurantCount;
+
+    @Param({"10", "50"})
+    public int menuSize;
+
+    @Param({"1", "3", "8"})
+    public int orderSize;
+
+    private RestaurantService restaurantService;
+    private RestaurantSelectionStrategy selectionStrategy;
+    private List<List<String>> baskets;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(Fleet.SEED);
+        restaurantService = Fleet.onboard(restaurantCount, menuSize, Integer.MAX_VALUE, random);
+        selectionStrategy = StrategyFactory.createStrategy(strategy);
+        baskets = Fleet.baskets(BASKETS, orderSize, menuSize, random);
+    }
+
+    @Benchmark
+    public Restaurant selectRestaurant() {
+        List<String> basket = baskets.get(next++ & (BASKETS - 1));
+        return selectionStrategy.selectRestaurant(restaurantService, basket);
+    }
+}
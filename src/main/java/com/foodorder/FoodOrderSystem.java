@@ -3,15 +3,31 @@ package com.foodorder;
 import com.foodorder.command.Command;
 import com.foodorder.command.CommandFactory;
 import com.foodorder.command.CommandProcessor;
+import com.foodorder.command.RingBufferEngine;
+import com.foodorder.metrics.Metrics;
+import com.foodorder.metrics.MetricsSnapshot;
+import com.foodorder.persistence.PersistenceManager;
+import com.foodorder.replay.CommandFileReplayer;
+import com.foodorder.server.CommandServer;
 import com.foodorder.service.OrderService;
 import com.foodorder.service.RestaurantService;
 import com.foodorder.strategy.LowestPriceStrategy;
 import com.foodorder.strategy.RestaurantSelectionStrategy;
 
 import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Main class for the Food Order Management System.
@@ -24,11 +40,21 @@ public class FoodOrderSystem {
     private final CommandProcessor commandProcessor;
 
     public FoodOrderSystem() {
+        this(new CommandProcessor());
+    }
+
+    /**
+     * Create a system that executes commands through the given processor, e.g. one
+     * in streaming mode.
+     * 
+     * @param commandProcessor Processor executing the parsed commands
+     */
+    public FoodOrderSystem(CommandProcessor commandProcessor) {
         this.restaurantService = new RestaurantService();
         RestaurantSelectionStrategy strategy = new LowestPriceStrategy();
         this.orderService = new OrderService(restaurantService, strategy);
         this.commandFactory = new CommandFactory(restaurantService, orderService);
-        this.commandProcessor = new CommandProcessor();
+        this.commandProcessor = commandProcessor;
     }
 
     /**
@@ -56,13 +82,141 @@ public class FoodOrderSystem {
         return commandProcessor.executeAll();
     }
 
+    /**
+     * Take a snapshot of the hot-path metrics, including current restaurant utilization.
+     * Metrics are only recorded while enabled through Metrics.enable().
+     * 
+     * @return The metrics snapshot
+     */
+    public MetricsSnapshot getMetricsSnapshot() {
+        return Metrics.snapshot(restaurantService.getAllRestaurants());
+    }
+
+    /**
+     * Make the system's state durable: restore the latest snapshot and the WAL tail
+     * from the data directory, then log every further change there.
+     * 
+     * @param dataDirectory Directory holding the WAL segments and snapshots
+     * @param snapshotInterval Number of WAL records between snapshots
+     * @return The persistence manager, to be closed on shutdown
+     * @throws IOException If the saved state cannot be read
+     */
+    public PersistenceManager enablePersistence(Path dataDirectory, int snapshotInterval) throws IOException {
+        PersistenceManager persistence = new PersistenceManager(dataDirectory, restaurantService, orderService,
+                snapshotInterval, false);
+        persistence.recover();
+        return persistence;
+    }
+
+    /**
+     * Replay a command file in bulk: the file is memory-mapped, parsed in parallel
+     * and executed in timestamp order.
+     * 
+     * @param commandFile File with one command per line
+     * @param output Writer receiving the execution results
+     * @return Summary of the replay
+     * @throws IOException If the file cannot be read or the output written
+     */
+    public CommandFileReplayer.Summary replay(Path commandFile, Writer output) throws IOException {
+        return new CommandFileReplayer(commandFactory, commandProcessor).replay(commandFile, output);
+    }
+
+    /**
+     * Replay a command file that is already in timestamp order, executing it in file
+     * order with pooled commands and a reused result buffer.
+     * 
+     * @param commandFile File with one command per line
+     * @param output Writer receiving the execution results
+     * @return Summary of the replay
+     * @throws IOException If the file cannot be read or the output written
+     */
+    public CommandFileReplayer.Summary replayInFileOrder(Path commandFile, Writer output) throws IOException {
+        return new CommandFileReplayer(commandFactory, commandProcessor).replayInFileOrder(commandFile, output);
+    }
+
+    /**
+     * Serve the command protocol over TCP. Commands received over the network are
+     * executed as they arrive rather than queued in the command processor.
+     * 
+     * @param port Port to listen on, 0 for any free port
+     * @return The running server, to be closed on shutdown
+     * @throws IOException If the port cannot be bound
+     */
+    public CommandServer serve(int port) throws IOException {
+        return new CommandServer(commandFactory, port);
+    }
+
     /**
      * Main method to run the application.
      * 
+     * Usage: FoodOrderSystem [--replay commandFile [outputFile] | --replay-in-order commandFile [outputFile]
+     *                         | --stream allowedLateness | --ring [bufferSize] | --serve [port]]
+     * 
+     * Metrics are enabled with -Dfoodorder.metrics=true, and dumped to standard error
+     * every N seconds with -Dfoodorder.metrics.dumpIntervalSeconds=N.
+     * 
+     * State is persisted to a directory with -Dfoodorder.dataDir=DIR and recovered
+     * from it on startup; -Dfoodorder.snapshotInterval=N sets the number of logged
+     * changes between snapshots.
+     * 
+     * Placed orders not dispatched within N milliseconds expire and release their
+     * restaurant slot with -Dfoodorder.reservationTimeoutMillis=N.
+     * 
      * @param args Command line arguments
      */
     public static void main(String[] args) {
-        FoodOrderSystem system = new FoodOrderSystem();
+        if (Boolean.getBoolean("foodorder.metrics")) {
+            Metrics.enable();
+        }
+        long dumpIntervalSeconds = Long.getLong("foodorder.metrics.dumpIntervalSeconds", 0L);
+        
+        if (args.length >= 2 && ("--replay".equals(args[0]) || "--replay-in-order".equals(args[0]))) {
+            FoodOrderSystem system = new FoodOrderSystem();
+            setReservationTimeout(system);
+            enablePersistence(system);
+            replayFile(system, Paths.get(args[1]), args.length > 2 ? Paths.get(args[2]) : null,
+                       "--replay-in-order".equals(args[0]));
+            if (Metrics.isEnabled()) {
+                System.err.println(system.getMetricsSnapshot());
+            }
+            return;
+        }
+        
+        if (args.length >= 1 && "--serve".equals(args[0])) {
+            FoodOrderSystem system = new FoodOrderSystem();
+            setReservationTimeout(system);
+            enablePersistence(system);
+            int port = args.length > 1 ? Integer.parseInt(args[1]) : CommandServer.DEFAULT_PORT;
+            serve(system, port);
+            return;
+        }
+        
+        if (args.length >= 1 && "--ring".equals(args[0])) {
+            FoodOrderSystem system = new FoodOrderSystem();
+            setReservationTimeout(system);
+            enablePersistence(system);
+            int bufferSize = args.length > 1 ? Integer.parseInt(args[1]) : RingBufferEngine.DEFAULT_BUFFER_SIZE;
+            runRingBuffer(system, bufferSize);
+            return;
+        }
+        
+        FoodOrderSystem system;
+        if (args.length >= 2 && "--stream".equals(args[0])) {
+            // Results are printed as soon as each command runs
+            system = new FoodOrderSystem(new CommandProcessor(Long.parseLong(args[1]),
+                    CommandProcessor.DEFAULT_MAX_BUFFERED_COMMANDS, (command, result) -> {
+                        System.out.println(result);
+                        System.out.println("-------------------");
+                    }));
+        } else {
+            system = new FoodOrderSystem();
+        }
+        setReservationTimeout(system);
+        enablePersistence(system);
+        if (Metrics.isEnabled() && dumpIntervalSeconds > 0) {
+            Metrics.startPeriodicDump(system.restaurantService::getAllRestaurants,
+                    dumpIntervalSeconds, TimeUnit.SECONDS, System.err);
+        }
         
         System.out.println("Food Order Management System");
         System.out.println("Enter commands (type 'exit' to quit, 'execute' to run queued commands):");
@@ -86,4 +240,86 @@ public class FoodOrderSystem {
             System.err.println("Error reading input: " + e.getMessage());
         }
     }
+
+    private static void setReservationTimeout(FoodOrderSystem system) {
+        long timeoutMillis = Long.getLong("foodorder.reservationTimeoutMillis", 0L);
+        if (timeoutMillis > 0) {
+            system.orderService.setReservationTimeout(timeoutMillis);
+        }
+    }
+
+    private static void enablePersistence(FoodOrderSystem system) {
+        String dataDir = System.getProperty("foodorder.dataDir");
+        if (dataDir == null) {
+            return;
+        }
+        int snapshotInterval = Integer.getInteger("foodorder.snapshotInterval",
+                PersistenceManager.DEFAULT_SNAPSHOT_INTERVAL);
+        try {
+            PersistenceManager persistence = system.enablePersistence(Paths.get(dataDir), snapshotInterval);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    persistence.close();
+                } catch (IOException e) {
+                    System.err.println("Error closing write-ahead log: " + e.getMessage());
+                }
+            }));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error recovering state from " + dataDir, e);
+        }
+    }
+
+    /**
+     * Read commands from standard input and execute them in arrival order on a
+     * ring buffer engine, printing each result as soon as it is delivered.
+     */
+    private static void runRingBuffer(FoodOrderSystem system, int bufferSize) {
+        RingBufferEngine engine = new RingBufferEngine(bufferSize, (command, result) -> {
+            System.out.println(result);
+            System.out.println("-------------------");
+        });
+        engine.start("foodorder-engine");
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(System.in))) {
+            String input;
+            while ((input = reader.readLine()) != null && !input.equalsIgnoreCase("exit")) {
+                try {
+                    engine.publish(system.commandFactory.createCommand(input));
+                } catch (Exception e) {
+                    System.out.println("Error processing command: " + e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error reading input: " + e.getMessage());
+        } finally {
+            engine.close();
+        }
+    }
+
+    private static void serve(FoodOrderSystem system, int port) {
+        try (CommandServer server = system.serve(port)) {
+            System.err.println("Serving commands on port " + server.getPort()
+                    + (server.usesVirtualThreads() ? " (virtual threads)" : " (platform threads)"));
+            server.awaitTermination();
+        } catch (IOException e) {
+            System.err.println("Error serving on port " + port + ": " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void replayFile(FoodOrderSystem system, Path commandFile, Path outputFile, boolean inFileOrder) {
+        try (Writer output = new BufferedWriter(Channels.newWriter(
+                outputFile == null
+                        ? Channels.newChannel(System.out)
+                        : FileChannel.open(outputFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                           StandardOpenOption.TRUNCATE_EXISTING),
+                StandardCharsets.UTF_8.newEncoder(), -1), 1 << 16)) {
+            CommandFileReplayer.Summary summary = inFileOrder
+                    ? system.replayInFileOrder(commandFile, output)
+                    : system.replay(commandFile, output);
+            System.err.println(summary);
+        } catch (IOException e) {
+            System.err.println("Error replaying " + commandFile + ": " + e.getMessage());
+        }
+    }
 } 
\ No newline at end of file
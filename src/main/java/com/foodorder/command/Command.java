@@ -1,5 +1,7 @@
 package com.foodorder.command;
 
+import java.io.IOException;
+
 /**
  * Interface for command pattern implementation.
  * Updated for Java 17.
@@ -12,6 +14,17 @@ public interface Command {
      */
     String execute();
     
+    /**
+     * Execute the command, writing its result to the given output. Commands with
+     * large results override this to stream them instead of building one string.
+     * 
+     * @param out Destination of the execution result
+     * @throws IOException If writing to the output fails
+     */
+    default void executeTo(Appendable out) throws IOException {
+        out.append(execute());
+    }
+    
     /**
      * Get the timestamp of the command.
      * 
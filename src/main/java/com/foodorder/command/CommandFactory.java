@@ -1,7 +1,13 @@
 package com.foodorder.command;
 
+import com.foodorder.model.Basket;
+import com.foodorder.model.MenuItem;
 import com.foodorder.service.OrderService;
 import com.foodorder.service.RestaurantService;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Factory for creating command objects from input strings.
@@ -16,6 +22,15 @@ public class CommandFactory {
         this.orderService = orderService;
     }
 
+    /**
+     * Create a pool of reusable commands parsing lines against this factory's services.
+     * 
+     * @return A new pool, to be used by one thread
+     */
+    public CommandPool newCommandPool() {
+        return new CommandPool(this, orderService);
+    }
+
     /**
      * Create a command from an input string.
      * 
@@ -23,98 +38,154 @@ public class CommandFactory {
      * @return Command object
      */
     public Command createCommand(String input) {
-        String[] parts = input.split(",", 3);
-        if (parts.length < 2) {
+        return createCommand((CharSequence) input);
+    }
+
+    /**
+     * Create a command from a line of input, parsed in a single pass without
+     * splitting it into intermediate strings.
+     * 
+     * @param input Input line in the format "timestamp, command-type, arg1, arg2, ..."
+     * @return Command object
+     */
+    public Command createCommand(CharSequence input) {
+        CommandTokenizer tokenizer = new CommandTokenizer(input);
+        long timestamp = tokenizer.readLong();
+        if (tokenizer.atEnd()) {
             throw new IllegalArgumentException("Invalid command format: " + input);
         }
         
-        long timestamp = Long.parseLong(parts[0].trim());
-        String commandType = parts[1].trim();
-        String args = parts.length > 2 ? parts[2] : "";
-        
-        switch (commandType) {
-            case "onboard-restaurant":
-                return createOnboardRestaurantCommand(input, timestamp);
-            case "update-price":
-                return createUpdatePriceCommand(args, timestamp);
-            case "place-order":
-                return createPlaceOrderCommand(args, timestamp);
-            case "dispatch-order":
-                return createDispatchOrderCommand(args, timestamp);
-            case "list-items":
-                return createListItemsCommand(args, timestamp);
-            case "list-dispatched-orders":
-                return new ListDispatchedOrdersCommand(orderService, timestamp);
-            case "change-strategy":
-                return createChangeStrategyCommand(args, timestamp);
-            default:
-                throw new IllegalArgumentException("Unknown command type: " + commandType);
+        if (tokenizer.consumeKeyword("place-orders")) {
+            return createPlaceOrdersCommand(tokenizer, timestamp);
+        } else if (tokenizer.consumeKeyword("place-order")) {
+            return createPlaceOrderCommand(tokenizer, timestamp);
+        } else if (tokenizer.consumeKeyword("dispatch-order")) {
+            return createDispatchOrderCommand(tokenizer, timestamp);
+        } else if (tokenizer.consumeKeyword("update-price")) {
+            return createUpdatePriceCommand(tokenizer, timestamp);
+        } else if (tokenizer.consumeKeyword("onboard-restaurant")) {
+            return createOnboardRestaurantCommand(tokenizer, timestamp);
+        } else if (tokenizer.consumeKeyword("list-items")) {
+            return createListItemsCommand(tokenizer, timestamp);
+        } else if (tokenizer.consumeKeyword("list-dispatched-orders")) {
+            return createListDispatchedOrdersCommand(tokenizer, timestamp);
+        } else if (tokenizer.consumeKeyword("change-strategy")) {
+            return createChangeStrategyCommand(tokenizer, timestamp);
         }
+        throw new IllegalArgumentException("Unknown command type: " + tokenizer.readField());
     }
 
-    private OnboardRestaurantCommand createOnboardRestaurantCommand(String input, long timestamp) {
-        // Special parsing for onboard-restaurant command due to complex format
+    private OnboardRestaurantCommand createOnboardRestaurantCommand(CommandTokenizer tokenizer, long timestamp) {
         // Format: timestamp, onboard-restaurant, restaurantId, [(item1, price1),(item2, price2),...], maxCapacity
+        String restaurantId = tokenizer.readField();
         
-        int firstCommaIndex = input.indexOf(',');
-        int secondCommaIndex = input.indexOf(',', firstCommaIndex + 1);
-        int thirdCommaIndex = input.indexOf(',', secondCommaIndex + 1);
-        
-        // Find the last comma before the closing bracket
-        int closingBracketIndex = input.lastIndexOf(']');
-        int fourthCommaIndex = input.indexOf(',', closingBracketIndex);
-        
-        if (firstCommaIndex == -1 || secondCommaIndex == -1 || thirdCommaIndex == -1 || 
-            closingBracketIndex == -1 || fourthCommaIndex == -1) {
-            throw new IllegalArgumentException("Invalid onboard-restaurant command format: " + input);
+        List<MenuItem> menuItems = new ArrayList<>();
+        tokenizer.expect('[');
+        while (!tokenizer.consume(']')) {
+            tokenizer.expect('(');
+            String itemId = tokenizer.readUntil(',');
+            tokenizer.expect(',');
+            double price = tokenizer.readDouble();
+            tokenizer.expect(')');
+            menuItems.add(new MenuItem(itemId, price));
+            tokenizer.consume(',');
         }
+        tokenizer.expect(',');
         
-        String restaurantId = input.substring(secondCommaIndex + 1, thirdCommaIndex).trim();
-        String menuItemsStr = input.substring(thirdCommaIndex + 1, fourthCommaIndex).trim();
-        String capacityStr = input.substring(fourthCommaIndex + 1).trim();
-        
-        int maxProcessingCapacity = Integer.parseInt(capacityStr);
+        int maxProcessingCapacity = tokenizer.readInt();
+        if (!tokenizer.atEnd()) {
+            throw new IllegalArgumentException("Invalid onboard-restaurant command format: " + tokenizer.line());
+        }
         
-        return new OnboardRestaurantCommand(restaurantService, restaurantId, menuItemsStr, maxProcessingCapacity, timestamp);
+        return new OnboardRestaurantCommand(restaurantService, restaurantId, menuItems, maxProcessingCapacity, timestamp);
     }
 
-    private UpdatePriceCommand createUpdatePriceCommand(String args, long timestamp) {
-        String[] parts = args.split(",", 3);
-        if (parts.length < 3) {
+    private UpdatePriceCommand createUpdatePriceCommand(CommandTokenizer tokenizer, long timestamp) {
+        String restaurantId = tokenizer.readField();
+        if (tokenizer.atEnd()) {
+            throw new IllegalArgumentException("Invalid update-price command format");
+        }
+        String itemId = tokenizer.readField();
+        if (tokenizer.atEnd()) {
+            throw new IllegalArgumentException("Invalid update-price command format");
+        }
+        double newPrice = tokenizer.readDouble();
+        if (!tokenizer.atEnd()) {
             throw new IllegalArgumentException("Invalid update-price command format");
         }
-        
-        String restaurantId = parts[0].trim();
-        String itemId = parts[1].trim();
-        double newPrice = Double.parseDouble(parts[2].trim());
         
         return new UpdatePriceCommand(restaurantService, restaurantId, itemId, newPrice, timestamp);
     }
 
-    private PlaceOrderCommand createPlaceOrderCommand(String args, long timestamp) {
-        String[] parts = args.split(",", 2);
-        if (parts.length < 2) {
+    private PlaceOrderCommand createPlaceOrderCommand(CommandTokenizer tokenizer, long timestamp) {
+        String orderId = readPlaceOrderId(tokenizer);
+        Basket.Builder basket = Basket.builder();
+        readPlaceOrderItems(tokenizer, basket);
+        return new PlaceOrderCommand(orderService, orderId, basket.build(), timestamp);
+    }
+
+    static String readPlaceOrderId(CommandTokenizer tokenizer) {
+        String orderId = tokenizer.readField();
+        if (tokenizer.atEnd()) {
             throw new IllegalArgumentException("Invalid place-order command format");
         }
+        return orderId;
+    }
+
+    static void readPlaceOrderItems(CommandTokenizer tokenizer, Basket.Builder basket) {
+        // Each field is an item ID, optionally with a quantity as in item1*40
+        while (!tokenizer.atEnd()) {
+            PlaceOrderCommand.parseItem(basket, tokenizer.readField());
+        }
+    }
+
+    private PlaceOrdersCommand createPlaceOrdersCommand(CommandTokenizer tokenizer, long timestamp) {
+        // Format: timestamp, place-orders, [(order1, item1, item2*2),(order2, item3),...]
+        Map<String, Basket> batch = new LinkedHashMap<>();
+        tokenizer.expect('[');
+        while (!tokenizer.consume(']')) {
+            tokenizer.expect('(');
+            String orderId = tokenizer.readUntil(',', ')');
+            Basket.Builder basket = Basket.builder();
+            while (tokenizer.consume(',')) {
+                PlaceOrderCommand.parseItem(basket, tokenizer.readUntil(',', ')'));
+            }
+            tokenizer.expect(')');
+            Basket items = basket.build();
+            if (items.isEmpty() || batch.put(orderId, items) != null) {
+                throw new IllegalArgumentException("Invalid place-orders command format: " + tokenizer.line());
+            }
+            tokenizer.consume(',');
+        }
+        if (batch.isEmpty() || !tokenizer.atEnd()) {
+            throw new IllegalArgumentException("Invalid place-orders command format: " + tokenizer.line());
+        }
         
-        String orderId = parts[0].trim();
-        String itemsStr = parts[1].trim();
-        
-        return new PlaceOrderCommand(orderService, orderId, itemsStr, timestamp);
+        return new PlaceOrdersCommand(orderService, batch, timestamp);
     }
 
-    private DispatchOrderCommand createDispatchOrderCommand(String args, long timestamp) {
-        String orderId = args.trim();
+    private DispatchOrderCommand createDispatchOrderCommand(CommandTokenizer tokenizer, long timestamp) {
+        String orderId = tokenizer.readRest();
         return new DispatchOrderCommand(orderService, orderId, timestamp);
     }
 
-    private ListItemsCommand createListItemsCommand(String args, long timestamp) {
-        String restaurantId = args.trim();
+    private ListItemsCommand createListItemsCommand(CommandTokenizer tokenizer, long timestamp) {
+        String restaurantId = tokenizer.readRest();
         return new ListItemsCommand(restaurantService, restaurantId, timestamp);
     }
     
-    private ChangeStrategyCommand createChangeStrategyCommand(String args, long timestamp) {
-        String strategyName = args.trim();
+    private ListDispatchedOrdersCommand createListDispatchedOrdersCommand(CommandTokenizer tokenizer, long timestamp) {
+        // Optional paging: list-dispatched-orders, offset, limit
+        if (tokenizer.atEnd()) {
+            return new ListDispatchedOrdersCommand(orderService, timestamp);
+        }
+        int offset = tokenizer.readInt();
+        int limit = tokenizer.atEnd() ? ListDispatchedOrdersCommand.MAX_PAGE_SIZE : tokenizer.readInt();
+        return new ListDispatchedOrdersCommand(orderService, offset, limit, timestamp);
+    }
+    
+    private ChangeStrategyCommand createChangeStrategyCommand(CommandTokenizer tokenizer, long timestamp) {
+        String strategyName = tokenizer.readRest();
         return new ChangeStrategyCommand(orderService, strategyName, timestamp);
     }
-} 
\ No newline at end of file
+}
\ No newline at end of file
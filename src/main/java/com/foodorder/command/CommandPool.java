@@ -0,0 +1,55 @@
+package com.foodorder.command;
+
+import com.foodorder.model.Basket;
+import com.foodorder.service.OrderService;
+
+/**
+ * Parser that reuses one command object per frequent command type.
+ * 
+ * place-order and dispatch-order lines are parsed into the pool's own instances,
+ * reset for every line, with the item buffer and tokenizer reused as well; other
+ * command types are rare and are created by the CommandFactory as usual. A command
+ * returned by parse() is only valid until the next call, so it must be executed
+ * before the next line is parsed, e.g. when replaying a log in file order.
+ * Not safe for concurrent use.
+ */
+public final class CommandPool {
+    private final CommandFactory commandFactory;
+    private final CommandTokenizer tokenizer;
+    private final Basket.Builder basket;
+    private final PlaceOrderCommand placeOrder;
+    private final DispatchOrderCommand dispatchOrder;
+
+    CommandPool(CommandFactory commandFactory, OrderService orderService) {
+        this.commandFactory = commandFactory;
+        this.tokenizer = new CommandTokenizer("");
+        this.basket = Basket.builder();
+        this.placeOrder = new PlaceOrderCommand(orderService, null, Basket.builder().build(), 0);
+        this.dispatchOrder = new DispatchOrderCommand(orderService, null, 0);
+    }
+
+    /**
+     * Parse a line into a pooled command where one exists.
+     * 
+     * @param line Input line in the format "timestamp, command-type, arg1, arg2, ..."
+     * @return The command, valid until the next call
+     */
+    public Command parse(CharSequence line) {
+        tokenizer.reset(line);
+        long timestamp = tokenizer.readLong();
+        if (tokenizer.atEnd()) {
+            throw new IllegalArgumentException("Invalid command format: " + line);
+        }
+        
+        if (tokenizer.consumeKeyword("place-order")) {
+            String orderId = CommandFactory.readPlaceOrderId(tokenizer);
+            CommandFactory.readPlaceOrderItems(tokenizer, basket.clear());
+            placeOrder.reset(orderId, basket.build(), timestamp);
+            return placeOrder;
+        } else if (tokenizer.consumeKeyword("dispatch-order")) {
+            dispatchOrder.reset(tokenizer.readRest(), timestamp);
+            return dispatchOrder;
+        }
+        return commandFactory.createCommand(line);
+    }
+}
@@ -1,47 +1,201 @@
 package com.foodorder.command;
 
+import com.foodorder.metrics.Metrics;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
 import java.util.PriorityQueue;
 
 /**
  * Processor for executing commands in timestamp order.
  * Updated for Java 8.
+ * 
+ * In the default batch mode, commands are buffered until executeAll() runs them.
+ * In streaming mode, a command runs as soon as it falls behind the watermark
+ * (the highest timestamp seen minus the allowed lateness) and its result goes
+ * straight to a sink, so memory stays bounded by the reorder window. Commands
+ * arriving later than the allowed lateness run immediately and are counted.
  */
 public class CommandProcessor {
+    public static final int DEFAULT_MAX_BUFFERED_COMMANDS = 100_000;
+
     private final PriorityQueue<Command> commandQueue;
-    private final List<String> executionResults;
+    private List<String> executionResults;
+    private final boolean streaming;
+    private final long allowedLateness;
+    private final int maxBufferedCommands;
+    private final ResultSink sink;
+    private long maxTimestamp;
+    private long lastExecutedTimestamp;
+    private long lateCommands;
 
     public CommandProcessor() {
         this.commandQueue = new PriorityQueue<>(Comparator.comparingLong(Command::getTimestamp));
-        this.executionResults = new ArrayList<>();
+        this.executionResults = Collections.emptyList();
+        this.streaming = false;
+        this.allowedLateness = 0;
+        this.maxBufferedCommands = Integer.MAX_VALUE;
+        this.sink = null;
     }
 
     /**
-     * Add a command to the queue.
+     * Create a processor in streaming mode.
+     * 
+     * @param allowedLateness How far behind the highest timestamp seen a command may arrive and still be reordered
+     * @param maxBufferedCommands Upper bound on buffered commands; the oldest run early once it is reached
+     * @param sink Receiver of execution results
+     */
+    public CommandProcessor(long allowedLateness, int maxBufferedCommands, ResultSink sink) {
+        if (allowedLateness < 0) {
+            throw new IllegalArgumentException("Allowed lateness must not be negative: " + allowedLateness);
+        }
+        if (maxBufferedCommands <= 0) {
+            throw new IllegalArgumentException("Max buffered commands must be positive: " + maxBufferedCommands);
+        }
+        this.commandQueue = new PriorityQueue<>(Comparator.comparingLong(Command::getTimestamp));
+        this.executionResults = Collections.emptyList();
+        this.streaming = true;
+        this.allowedLateness = allowedLateness;
+        this.maxBufferedCommands = maxBufferedCommands;
+        this.sink = sink;
+        this.maxTimestamp = Long.MIN_VALUE;
+        this.lastExecutedTimestamp = Long.MIN_VALUE;
+    }
+
+    /**
+     * Add a command to the queue. In streaming mode, this also runs every
+     * buffered command that has fallen behind the watermark.
      * 
      * @param command Command to add
      */
-    public void addCommand(Command command) {
+    public synchronized void addCommand(Command command) {
+        if (!streaming) {
+            commandQueue.add(command);
+            return;
+        }
+        
+        if (command.getTimestamp() < lastExecutedTimestamp) {
+            // Too late to be reordered: later commands have already run
+            lateCommands++;
+            execute(command);
+            return;
+        }
+        
         commandQueue.add(command);
+        maxTimestamp = Math.max(maxTimestamp, command.getTimestamp());
+        long watermark = maxTimestamp - allowedLateness;
+        while (!commandQueue.isEmpty()
+                && (commandQueue.peek().getTimestamp() <= watermark || commandQueue.size() > maxBufferedCommands)) {
+            execute(commandQueue.poll());
+        }
+    }
+
+    private void execute(Command command) {
+        String result = run(command);
+        lastExecutedTimestamp = Math.max(lastExecutedTimestamp, command.getTimestamp());
+        sink.accept(command, result);
     }
 
     /**
-     * Execute all commands in timestamp order.
+     * Execute all commands in timestamp order. In streaming mode the remaining
+     * buffered commands are flushed to the sink and an empty list is returned.
      * 
      * @return List of execution results
      */
-    public List<String> executeAll() {
-        executionResults.clear();
+    public synchronized List<String> executeAll() {
+        if (streaming) {
+            flush();
+            return new ArrayList<>();
+        }
         
+        List<String> results = new ArrayList<>(commandQueue.size());
         while (!commandQueue.isEmpty()) {
             Command command = commandQueue.poll();
-            String result = command.execute();
-            executionResults.add(result);
+            String result = run(command);
+            results.add(result);
         }
         
-        return new ArrayList<>(executionResults);
+        // Keep our own copy, so callers changing the returned list do not change it
+        executionResults = Collections.unmodifiableList(new ArrayList<>(results));
+        return results;
+    }
+
+    /**
+     * Run every buffered command regardless of the watermark, e.g. at end of input.
+     * Only meaningful in streaming mode.
+     * 
+     * @return Number of commands executed
+     */
+    public synchronized long flush() {
+        if (!streaming) {
+            throw new IllegalStateException("flush() is only supported in streaming mode");
+        }
+        long executed = 0;
+        while (!commandQueue.isEmpty()) {
+            execute(commandQueue.poll());
+            executed++;
+        }
+        return executed;
+    }
+
+    /**
+     * Execute all queued commands in timestamp order, handing each result to the
+     * sink instead of collecting them.
+     * 
+     * @param sink Receiver of execution results
+     * @return Number of commands executed
+     */
+    public synchronized long executeAll(ResultSink sink) {
+        long executed = 0;
+        while (!commandQueue.isEmpty()) {
+            Command command = commandQueue.poll();
+            sink.accept(command, run(command));
+            executed++;
+        }
+        return executed;
+    }
+
+    /**
+     * Execute commands from a source that is already in timestamp order, such as
+     * a merge of sorted command batches, without buffering them in the queue.
+     * 
+     * @param commands Commands in timestamp order
+     * @param sink Receiver of execution results
+     * @return Number of commands executed
+     */
+    public synchronized long executeInOrder(Iterator<? extends Command> commands, ResultSink sink) {
+        long executed = 0;
+        while (commands.hasNext()) {
+            Command command = commands.next();
+            sink.accept(command, run(command));
+            executed++;
+        }
+        return executed;
+    }
+
+    /**
+     * Execute one command immediately, bypassing the queue, and write its result to
+     * the given output instead of returning it. Used where commands are reused, so
+     * they must run before the next one is parsed.
+     * 
+     * @param command Command to execute
+     * @param out Destination of the execution result
+     * @throws IOException If writing to the output fails
+     */
+    public synchronized void executeNow(Command command, Appendable out) throws IOException {
+        long start = Metrics.startTimer();
+        command.executeTo(out);
+        Metrics.recordCommand(command, start);
+    }
+
+    private static String run(Command command) {
+        long start = Metrics.startTimer();
+        String result = command.execute();
+        Metrics.recordCommand(command, start);
+        return result;
     }
 
     /**
@@ -49,7 +203,29 @@ public class CommandProcessor {
      * 
      * @return List of execution results
      */
-    public List<String> getExecutionResults() {
-        return new ArrayList<>(executionResults);
+    public synchronized List<String> getExecutionResults() {
+        return executionResults;
+    }
+
+    /**
+     * Get the number of commands currently buffered.
+     * 
+     * @return Buffered command count
+     */
+    public synchronized int getBufferedCommandCount() {
+        return commandQueue.size();
+    }
+
+    /**
+     * Get the number of commands that arrived too late to be reordered.
+     * 
+     * @return Late command count
+     */
+    public synchronized long getLateCommandCount() {
+        return lateCommands;
+    }
+
+    public boolean isStreaming() {
+        return streaming;
     }
-} 
\ No newline at end of file
+}
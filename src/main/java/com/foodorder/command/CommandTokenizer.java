@@ -0,0 +1,299 @@
+package com.foodorder.command;
+
+/**
+ * Single-pass cursor over a command line.
+ * 
+ * Fields are read in place from the underlying character sequence: numbers are
+ * parsed straight from the characters and only values that end up in a command
+ * (IDs) are materialized as strings. Works on any CharSequence, including
+ * CharBuffers over file contents.
+ */
+final class CommandTokenizer {
+    private static final long[] POWERS_OF_TEN = {
+        1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L,
+        1_000_000_000L, 10_000_000_000L, 100_000_000_000L, 1_000_000_000_000L,
+        10_000_000_000_000L, 100_000_000_000_000L, 1_000_000_000_000_000L
+    };
+    private static final long MAX_EXACT_DOUBLE = 1L << 53;
+
+    private CharSequence line;
+    private int position;
+    private int end;
+
+    CommandTokenizer(CharSequence line) {
+        reset(line);
+    }
+
+    /**
+     * Point the tokenizer at a new line, so one instance can be reused.
+     */
+    void reset(CharSequence line) {
+        this.line = line;
+        this.position = 0;
+        this.end = line.length();
+    }
+
+    CharSequence line() {
+        return line;
+    }
+
+    int position() {
+        return position;
+    }
+
+    boolean atEnd() {
+        skipWhitespace();
+        return position >= end;
+    }
+
+    /**
+     * Consume the next character if it is the expected one, after any whitespace.
+     */
+    boolean consume(char expected) {
+        skipWhitespace();
+        if (position < end && line.charAt(position) == expected) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    void expect(char expected) {
+        if (!consume(expected)) {
+            throw error("expected '" + expected + "'");
+        }
+    }
+
+    /**
+     * Index just past the field starting at the current position: the next comma or the end of line.
+     */
+    private int fieldEnd() {
+        int i = position;
+        while (i < end && line.charAt(i) != ',') {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Check whether the next field equals the given keyword, consuming it and its comma if so.
+     */
+    boolean consumeKeyword(String keyword) {
+        skipWhitespace();
+        int fieldEnd = fieldEnd();
+        int valueEnd = trimEnd(position, fieldEnd);
+        if (!regionEquals(position, valueEnd, keyword)) {
+            return false;
+        }
+        position = fieldEnd < end ? fieldEnd + 1 : fieldEnd;
+        return true;
+    }
+
+    /**
+     * Read the next comma-separated field, trimmed, and step past its comma.
+     */
+    String readField() {
+        skipWhitespace();
+        int start = position;
+        int fieldEnd = fieldEnd();
+        position = fieldEnd < end ? fieldEnd + 1 : fieldEnd;
+        return text(start, trimEnd(start, fieldEnd));
+    }
+
+    /**
+     * Read a field delimited by the given character, trimmed, leaving the delimiter unread.
+     */
+    String readUntil(char delimiter) {
+        skipWhitespace();
+        int start = position;
+        while (position < end && line.charAt(position) != delimiter) {
+            position++;
+        }
+        if (position >= end) {
+            throw error("expected '" + delimiter + "'");
+        }
+        return text(start, trimEnd(start, position));
+    }
+
+    /**
+     * Read a field delimited by either of the given characters, trimmed, leaving the delimiter unread.
+     */
+    String readUntil(char delimiter, char alternative) {
+        skipWhitespace();
+        int start = position;
+        while (position < end && line.charAt(position) != delimiter && line.charAt(position) != alternative) {
+            position++;
+        }
+        if (position >= end) {
+            throw error("expected '" + delimiter + "' or '" + alternative + "'");
+        }
+        return text(start, trimEnd(start, position));
+    }
+
+    /**
+     * Read everything up to the end of the line, trimmed.
+     */
+    String readRest() {
+        skipWhitespace();
+        int start = position;
+        position = end;
+        return text(start, trimEnd(start, end));
+    }
+
+    /**
+     * Read a signed integer field up to the next comma or the end of line.
+     */
+    long readLong() {
+        skipWhitespace();
+        int start = position;
+        boolean negative = false;
+        if (position < end && (line.charAt(position) == '-' || line.charAt(position) == '+')) {
+            negative = line.charAt(position) == '-';
+            position++;
+        }
+        int digitsStart = position;
+        long value = 0;
+        while (position < end) {
+            char c = line.charAt(position);
+            if (c < '0' || c > '9') {
+                break;
+            }
+            if (value > (Long.MAX_VALUE - (c - '0')) / 10) {
+                throw numberError(start);
+            }
+            value = value * 10 + (c - '0');
+            position++;
+        }
+        if (position == digitsStart) {
+            throw numberError(start);
+        }
+        skipFieldTerminator(start);
+        return negative ? -value : value;
+    }
+
+    int readInt() {
+        int start = position;
+        long value = readLong();
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            position = start;
+            throw numberError(start);
+        }
+        return (int) value;
+    }
+
+    /**
+     * Read a decimal number. Plain decimals are parsed without allocating; anything
+     * else (exponents, very long mantissas) falls back to Double.parseDouble.
+     */
+    double readDouble() {
+        skipWhitespace();
+        int start = position;
+        boolean negative = false;
+        if (position < end && (line.charAt(position) == '-' || line.charAt(position) == '+')) {
+            negative = line.charAt(position) == '-';
+            position++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = -1;
+        while (position < end) {
+            char c = line.charAt(position);
+            if (c >= '0' && c <= '9') {
+                mantissa = mantissa * 10 + (c - '0');
+                digits++;
+                if (fractionDigits >= 0) {
+                    fractionDigits++;
+                }
+            } else if (c == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+            } else {
+                break;
+            }
+            position++;
+        }
+        skipWhitespace();
+        boolean plain = position >= end || line.charAt(position) == ',' || line.charAt(position) == ')';
+        if (plain && digits > 0 && digits <= 15 && mantissa < MAX_EXACT_DOUBLE) {
+            // Both operands are exact, so the single division rounds exactly like parseDouble
+            double value = fractionDigits > 0 ? (double) mantissa / POWERS_OF_TEN[fractionDigits] : mantissa;
+            skipFieldTerminator(start);
+            return negative ? -value : value;
+        }
+        
+        int fieldEnd = start;
+        while (fieldEnd < end && line.charAt(fieldEnd) != ',' && line.charAt(fieldEnd) != ')') {
+            fieldEnd++;
+        }
+        String text = text(start, trimEnd(start, fieldEnd));
+        double value;
+        try {
+            value = Double.parseDouble(text);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number '" + text + "' in: " + line);
+        }
+        position = fieldEnd;
+        skipFieldTerminator(start);
+        return value;
+    }
+
+    /**
+     * After a number, allow trailing whitespace and step past a comma; leave other delimiters.
+     */
+    private void skipFieldTerminator(int fieldStart) {
+        skipWhitespace();
+        if (position < end) {
+            char c = line.charAt(position);
+            if (c == ',') {
+                position++;
+            } else if (c != ')') {
+                throw numberError(fieldStart);
+            }
+        }
+    }
+
+    private void skipWhitespace() {
+        while (position < end && Character.isWhitespace(line.charAt(position))) {
+            position++;
+        }
+    }
+
+    private int trimEnd(int start, int fieldEnd) {
+        while (fieldEnd > start && Character.isWhitespace(line.charAt(fieldEnd - 1))) {
+            fieldEnd--;
+        }
+        return fieldEnd;
+    }
+
+    private boolean regionEquals(int start, int regionEnd, String value) {
+        if (regionEnd - start != value.length()) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (line.charAt(start + i) != value.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String text(int start, int textEnd) {
+        if (line instanceof String) {
+            return ((String) line).substring(start, textEnd);
+        }
+        return line.subSequence(start, textEnd).toString();
+    }
+
+    private IllegalArgumentException numberError(int start) {
+        int fieldEnd = start;
+        while (fieldEnd < end && line.charAt(fieldEnd) != ',' && line.charAt(fieldEnd) != ')') {
+            fieldEnd++;
+        }
+        return new IllegalArgumentException("Invalid number '" + text(start, trimEnd(start, fieldEnd)).trim()
+                + "' in: " + line);
+    }
+
+    IllegalArgumentException error(String message) {
+        return new IllegalArgumentException("Invalid command format (" + message + " at position "
+                + position + "): " + line);
+    }
+}
@@ -2,14 +2,18 @@ package com.foodorder.command;
 
 import com.foodorder.model.Order;
 import com.foodorder.service.OrderService;
+import java.io.IOException;
 
 /**
  * Command to dispatch an order.
+ * 
+ * Instances handed out by a CommandPool are reset for every line they parse;
+ * all others keep the order they were created with.
  */
 public class DispatchOrderCommand implements Command {
     private final OrderService orderService;
-    private final String orderId;
-    private final long timestamp;
+    private String orderId;
+    private long timestamp;
 
     public DispatchOrderCommand(OrderService orderService, String orderId, long timestamp) {
         this.orderService = orderService;
@@ -17,13 +21,36 @@ public class DispatchOrderCommand implements Command {
         this.timestamp = timestamp;
     }
 
+    /**
+     * Point a pooled command at the next order.
+     */
+    void reset(String orderId, long timestamp) {
+        this.orderId = orderId;
+        this.timestamp = timestamp;
+    }
+
     @Override
     public String execute() {
+        StringBuilder result = new StringBuilder(128);
+        executeTo(result);
+        return result.toString();
+    }
+
+    @Override
+    public void executeTo(Appendable out) throws IOException {
+        if (out instanceof StringBuilder) {
+            executeTo((StringBuilder) out);
+        } else {
+            out.append(execute());
+        }
+    }
+
+    private void executeTo(StringBuilder out) {
         try {
             Order order = orderService.dispatchOrder(orderId);
-            return "Order dispatched successfully: " + order;
+            order.appendTo(out.append("Order dispatched successfully: "));
         } catch (Exception e) {
-            return "Failed to dispatch order: " + e.getMessage();
+            out.append("Failed to dispatch order: ").append(e.getMessage());
         }
     }
 
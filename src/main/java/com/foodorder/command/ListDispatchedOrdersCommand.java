@@ -2,36 +2,86 @@ package com.foodorder.command;
 
 import com.foodorder.model.Order;
 import com.foodorder.service.OrderService;
+import java.io.IOException;
 import java.util.List;
 
 /**
- * Command to list all dispatched orders.
+ * Command to list dispatched orders one page at a time.
+ * Orders are read from the dispatch index in chunks and written out as they
+ * are read, so the cost follows the page size rather than the order history.
+ * A page holds at most MAX_PAGE_SIZE orders, also when no limit is given, and
+ * ends with the offset of the next page when more orders follow.
  */
 public class ListDispatchedOrdersCommand implements Command {
+    public static final int MAX_PAGE_SIZE = 1000;
+    private static final int CHUNK_SIZE = 256;
+
     private final OrderService orderService;
+    private final int offset;
+    private final int limit;
     private final long timestamp;
 
     public ListDispatchedOrdersCommand(OrderService orderService, long timestamp) {
+        this(orderService, 0, MAX_PAGE_SIZE, timestamp);
+    }
+
+    public ListDispatchedOrdersCommand(OrderService orderService, int offset, int limit, long timestamp) {
+        if (offset < 0) {
+            throw new IllegalArgumentException("Offset must not be negative: " + offset);
+        }
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive: " + limit);
+        }
         this.orderService = orderService;
+        this.offset = offset;
+        this.limit = Math.min(limit, MAX_PAGE_SIZE);
         this.timestamp = timestamp;
     }
 
     @Override
     public String execute() {
+        StringBuilder result = new StringBuilder();
         try {
-            List<Order> dispatchedOrders = orderService.getDispatchedOrders();
-            if (dispatchedOrders.isEmpty()) {
-                return "No orders have been dispatched yet.";
+            executeTo(result);
+        } catch (IOException e) {
+            // StringBuilder does not throw
+        }
+        return result.toString();
+    }
+
+    @Override
+    public void executeTo(Appendable out) throws IOException {
+        try {
+            List<Order> chunk = orderService.getDispatchedOrders(offset, Math.min(limit, CHUNK_SIZE));
+            if (chunk.isEmpty()) {
+                out.append(offset == 0 ? "No orders have been dispatched yet."
+                                       : "No dispatched orders at offset " + offset + ".");
+                return;
             }
             
-            StringBuilder result = new StringBuilder("Dispatched orders:\n");
-            for (Order order : dispatchedOrders) {
-                result.append(order).append("\n");
+            out.append("Dispatched orders:\n");
+            int position = offset;
+            int remaining = limit;
+            while (!chunk.isEmpty()) {
+                for (Order order : chunk) {
+                    out.append(order.toString()).append('\n');
+                }
+                position += chunk.size();
+                remaining -= chunk.size();
+                if (remaining == 0 || chunk.size() < CHUNK_SIZE) {
+                    break;
+                }
+                chunk = orderService.getDispatchedOrders(position, Math.min(remaining, CHUNK_SIZE));
             }
             
-            return result.toString();
+            // Tell paging clients where the next page starts
+            if (position < orderService.getDispatchedOrderCount()) {
+                out.append("Next offset: ").append(Integer.toString(position)).append('\n');
+            }
+        } catch (IOException e) {
+            throw e;
         } catch (Exception e) {
-            return "Failed to list dispatched orders: " + e.getMessage();
+            out.append("Failed to list dispatched orders: ").append(e.getMessage());
         }
     }
 
@@ -39,4 +89,4 @@ public class ListDispatchedOrdersCommand implements Command {
     public long getTimestamp() {
         return timestamp;
     }
-} 
\ No newline at end of file
+}
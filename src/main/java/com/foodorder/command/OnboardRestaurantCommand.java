@@ -12,6 +12,8 @@ import java.util.regex.Pattern;
  * Command to onboard a new restaurant.
  */
 public class OnboardRestaurantCommand implements Command {
+    private static final Pattern MENU_ITEM_PATTERN = Pattern.compile("\\(([^,]+),\\s*(\\d+)\\)");
+
     private final RestaurantService restaurantService;
     private final String restaurantId;
     private final List<MenuItem> menuItems;
@@ -27,6 +29,15 @@ public class OnboardRestaurantCommand implements Command {
         this.timestamp = timestamp;
     }
 
+    public OnboardRestaurantCommand(RestaurantService restaurantService, String restaurantId,
+                                   List<MenuItem> menuItems, int maxProcessingCapacity, long timestamp) {
+        this.restaurantService = restaurantService;
+        this.restaurantId = restaurantId;
+        this.menuItems = new ArrayList<>(menuItems);
+        this.maxProcessingCapacity = maxProcessingCapacity;
+        this.timestamp = timestamp;
+    }
+
     private List<MenuItem> parseMenuItems(String menuItemsStr) {
         List<MenuItem> items = new ArrayList<>();
         
@@ -40,8 +51,7 @@ public class OnboardRestaurantCommand implements Command {
         }
         
         // Parse menu items from string like "[(item1, 50),(item2, 40),(item3, 40)]"
-        Pattern pattern = Pattern.compile("\\(([^,]+),\\s*(\\d+)\\)");
-        Matcher matcher = pattern.matcher(menuItemsStr);
+        Matcher matcher = MENU_ITEM_PATTERN.matcher(menuItemsStr);
         
         while (matcher.find()) {
             String itemId = matcher.group(1).trim();
@@ -1,57 +1,127 @@
 package com.foodorder.command;
 
+import com.foodorder.model.Basket;
 import com.foodorder.model.Order;
 import com.foodorder.service.OrderService;
-import java.util.ArrayList;
-import java.util.Arrays;
+import java.io.IOException;
 import java.util.List;
 
 /**
  * Command to place a new order.
+ * 
+ * Instances handed out by a CommandPool are reset for every line they parse;
+ * all others keep the order they were created with.
  */
 public class PlaceOrderCommand implements Command {
     private final OrderService orderService;
-    private final String orderId;
-    private final List<String> items;
-    private final long timestamp;
+    private String orderId;
+    private Basket basket;
+    private long timestamp;
 
     public PlaceOrderCommand(OrderService orderService, String orderId, List<String> items, long timestamp) {
         this.orderService = orderService;
         this.orderId = orderId;
-        this.items = new ArrayList<>(items);
+        this.basket = Basket.of(items);
+        this.timestamp = timestamp;
+    }
+
+    public PlaceOrderCommand(OrderService orderService, String orderId, Basket basket, long timestamp) {
+        this.orderService = orderService;
+        this.orderId = orderId;
+        this.basket = basket;
         this.timestamp = timestamp;
     }
 
     public PlaceOrderCommand(OrderService orderService, String orderId, String itemsStr, long timestamp) {
         this.orderService = orderService;
         this.orderId = orderId;
-        this.items = parseItems(itemsStr);
+        this.basket = parseItems(itemsStr);
         this.timestamp = timestamp;
     }
 
-    private List<String> parseItems(String itemsStr) {
-        // Parse items from string like "item1, item2, item3"
+    private Basket parseItems(String itemsStr) {
+        // Parse items from string like "item1, item2*3, item3"
         String[] itemArray = itemsStr.split(",");
-        List<String> itemList = new ArrayList<>();
+        Basket.Builder builder = Basket.builder();
         
         for (String item : itemArray) {
-            itemList.add(item.trim());
+            parseItem(builder, item);
         }
         
-        return itemList;
+        return builder.build();
+    }
+
+    /**
+     * Add one item field of a place-order command to a basket. A field is an item
+     * ID, optionally followed by '*' and a quantity, as in "item1*40".
+     * 
+     * @param builder Basket to add the item to
+     * @param field The field to parse
+     */
+    static void parseItem(Basket.Builder builder, String field) {
+        String item = field.trim();
+        int star = item.lastIndexOf('*');
+        String quantity = star > 0 ? item.substring(star + 1).trim() : "";
+        if (isDigits(quantity)) {
+            try {
+                builder.add(item.substring(0, star).trim(), Integer.parseInt(quantity));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid quantity in " + item);
+            }
+        } else {
+            builder.add(item, 1);
+        }
+    }
+
+    private static boolean isDigits(String s) {
+        if (s.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < s.length(); i++) {
+            if (!Character.isDigit(s.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Point a pooled command at the next order.
+     */
+    void reset(String orderId, Basket basket, long timestamp) {
+        this.orderId = orderId;
+        this.basket = basket;
+        this.timestamp = timestamp;
     }
 
     @Override
     public String execute() {
+        StringBuilder result = new StringBuilder(160);
+        executeTo(result);
+        return result.toString();
+    }
+
+    @Override
+    public void executeTo(Appendable out) throws IOException {
+        if (out instanceof StringBuilder) {
+            executeTo((StringBuilder) out);
+        } else {
+            out.append(execute());
+        }
+    }
+
+    private void executeTo(StringBuilder out) {
         try {
-            Order order = orderService.placeOrder(orderId, items);
+            Order order = orderService.placeOrder(orderId, basket);
             if (order == null) {
-                return "Failed to place order: No restaurant can fulfill the order";
+                out.append("Failed to place order: No restaurant can fulfill the order");
+                return;
             }
-            return "Order placed successfully: " + order + "\nTotal amount: " + order.getTotalAmount() + 
-                   ", Restaurant: " + order.getRestaurantId();
+            order.appendTo(out.append("Order placed successfully: "))
+                    .append("\nTotal amount: ").append(order.getTotalAmount())
+                    .append(", Restaurant: ").append(order.getRestaurantId());
         } catch (Exception e) {
-            return "Failed to place order: " + e.getMessage();
+            out.append("Failed to place order: ").append(e.getMessage());
         }
     }
 
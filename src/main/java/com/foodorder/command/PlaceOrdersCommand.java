@@ -0,0 +1,56 @@
+package com.foodorder.command;
+
+import com.foodorder.model.Basket;
+import com.foodorder.model.Order;
+import com.foodorder.service.OrderService;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Command to place a batch of orders that arrived together.
+ */
+public class PlaceOrdersCommand implements Command {
+    private final OrderService orderService;
+    private final Map<String, Basket> batch;
+    private final long timestamp;
+
+    public PlaceOrdersCommand(OrderService orderService, Map<String, Basket> batch, long timestamp) {
+        this.orderService = orderService;
+        this.batch = new LinkedHashMap<>(batch);
+        this.timestamp = timestamp;
+    }
+
+    @Override
+    public String execute() {
+        try {
+            List<Order> placed = orderService.placeOrders(batch);
+            List<String> orderIds = new ArrayList<>(batch.keySet());
+            
+            StringBuilder result = new StringBuilder();
+            for (int i = 0; i < orderIds.size(); i++) {
+                if (i > 0) {
+                    result.append('\n');
+                }
+                Order order = placed.get(i);
+                if (order == null) {
+                    result.append("Failed to place order ").append(orderIds.get(i))
+                          .append(": No restaurant can fulfill the order");
+                } else {
+                    result.append("Order placed successfully: ").append(order)
+                          .append("\nTotal amount: ").append(order.getTotalAmount())
+                          .append(", Restaurant: ").append(order.getRestaurantId());
+                }
+            }
+            return result.toString();
+        } catch (Exception e) {
+            return "Failed to place orders: " + e.getMessage();
+        }
+    }
+
+    @Override
+    public long getTimestamp() {
+        return timestamp;
+    }
+}
@@ -0,0 +1,14 @@
+package com.foodorder.command;
+
+/**
+ * Receives command execution results as they are produced.
+ */
+public interface ResultSink {
+    /**
+     * Accept the result of an executed command.
+     * 
+     * @param command The executed command
+     * @param result Result of the command execution
+     */
+    void accept(Command command, String result);
+}
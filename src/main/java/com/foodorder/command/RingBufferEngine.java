@@ -0,0 +1,237 @@
+package com.foodorder.command;
+
+import com.foodorder.metrics.Metrics;
+
+import java.io.Closeable;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Single-writer execution engine over a pre-allocated ring buffer, an alternative
+ * to draining a CommandProcessor.
+ * 
+ * Any number of producers publish parsed commands into the ring. One business
+ * thread executes them in publication order, so the services only ever see one
+ * caller and their locks are never contended. The results are written back into
+ * the same slots, and a second thread hands them to the result sink and frees the
+ * slots for reuse. Publication order is arrival order: unlike the CommandProcessor,
+ * commands are not reordered by timestamp.
+ * 
+ * Slots are claimed with one atomic increment and published with an ordered store
+ * of their sequence, so producers never lock. Every stage tracks its progress in a
+ * sequence counter and waits for the stage before it by spinning, then yielding,
+ * then parking briefly; nothing is allocated per command.
+ */
+public class RingBufferEngine implements Closeable {
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 14;
+
+    private static final int SPIN_TRIES = 100;
+    private static final int YIELD_TRIES = 200;
+    private static final long PARK_NANOS = 50_000;
+
+    private final Command[] commands;
+    private final String[] results;
+    private final AtomicLongArray published;
+    private final int mask;
+    private final ResultSink sink;
+    private final AtomicLong claimed;
+    private final AtomicLong executed;
+    private final AtomicLong delivered;
+    private volatile boolean running;
+    private Thread businessThread;
+    private Thread resultThread;
+
+    /**
+     * @param bufferSize Number of slots, rounded up to a power of two
+     * @param sink Receiver of execution results, called on the result thread in publication order
+     */
+    public RingBufferEngine(int bufferSize, ResultSink sink) {
+        if (bufferSize <= 0 || bufferSize > 1 << 30) {
+            throw new IllegalArgumentException("Buffer size must be between 1 and 2^30: " + bufferSize);
+        }
+        int size = bufferSize == 1 ? 1 : Integer.highestOneBit(bufferSize - 1) << 1;
+        this.commands = new Command[size];
+        this.results = new String[size];
+        this.published = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            published.set(i, -1);
+        }
+        this.mask = size - 1;
+        this.sink = sink;
+        this.claimed = new AtomicLong(-1);
+        this.executed = new AtomicLong(-1);
+        this.delivered = new AtomicLong(-1);
+    }
+
+    /**
+     * Start the business and result threads.
+     * 
+     * @param threadName Name of the business thread; the result thread gets a "-results" suffix
+     */
+    public synchronized void start(String threadName) {
+        if (businessThread != null) {
+            throw new IllegalStateException("Engine already started");
+        }
+        running = true;
+        businessThread = new Thread(this::executeLoop, threadName);
+        resultThread = new Thread(this::deliverLoop, threadName + "-results");
+        businessThread.setDaemon(true);
+        resultThread.setDaemon(true);
+        businessThread.start();
+        resultThread.start();
+    }
+
+    /**
+     * Publish a command for execution, waiting while the ring is full. Safe to call
+     * from any number of threads; publishing must stop before close().
+     * 
+     * @param command The command
+     * @return Sequence of the command, for awaitCompletion()
+     */
+    public long publish(Command command) {
+        if (!running) {
+            throw new IllegalStateException("Engine is not running");
+        }
+        long sequence = claimed.incrementAndGet();
+        // The slot is free once the result of the command a lap earlier was delivered
+        long wrapPoint = sequence - commands.length;
+        for (int tries = 0; delivered.get() < wrapPoint; ) {
+            tries = idle(tries);
+        }
+        int index = (int) sequence & mask;
+        commands[index] = command;
+        published.lazySet(index, sequence);
+        return sequence;
+    }
+
+    /**
+     * Wait until the result of a published command has been handed to the sink.
+     * 
+     * @param sequence Sequence returned by publish()
+     */
+    public void awaitCompletion(long sequence) {
+        for (int tries = 0; delivered.get() < sequence; ) {
+            tries = idle(tries);
+        }
+    }
+
+    /**
+     * Wait until every command published so far has been executed and delivered.
+     */
+    public void drain() {
+        awaitCompletion(claimed.get());
+    }
+
+    /**
+     * Get the number of commands executed so far.
+     * 
+     * @return Executed command count
+     */
+    public long getExecutedCount() {
+        return executed.get() + 1;
+    }
+
+    /**
+     * Get the number of slots in the ring.
+     * 
+     * @return The buffer size
+     */
+    public int getBufferSize() {
+        return commands.length;
+    }
+
+    private void executeLoop() {
+        long next = 0;
+        while (true) {
+            int index = (int) next & mask;
+            for (int tries = 0; published.get(index) != next; ) {
+                if (!running && claimed.get() < next) {
+                    return;
+                }
+                tries = idle(tries);
+            }
+            results[index] = run(commands[index]);
+            executed.lazySet(next);
+            next++;
+        }
+    }
+
+    private void deliverLoop() {
+        long next = 0;
+        while (true) {
+            long available;
+            for (int tries = 0; (available = executed.get()) < next; ) {
+                if (!running && claimed.get() < next) {
+                    return;
+                }
+                tries = idle(tries);
+            }
+            
+            // Hand over everything executed so far as one batch, then free the slots
+            for (; next <= available; next++) {
+                int index = (int) next & mask;
+                try {
+                    sink.accept(commands[index], results[index]);
+                } catch (RuntimeException e) {
+                    System.err.println("Error delivering result of sequence " + next + ": " + e.getMessage());
+                }
+                commands[index] = null;
+                results[index] = null;
+            }
+            delivered.lazySet(available);
+        }
+    }
+
+    private static String run(Command command) {
+        long start = Metrics.startTimer();
+        String result;
+        try {
+            result = command.execute();
+        } catch (RuntimeException e) {
+            result = "Error executing command: " + e.getMessage();
+        }
+        Metrics.recordCommand(command, start);
+        return result;
+    }
+
+    /**
+     * Back off after a failed wait check: spin, then yield, then park.
+     * 
+     * @return The try count for the next check
+     */
+    private static int idle(int tries) {
+        if (tries < SPIN_TRIES) {
+            return tries + 1;
+        }
+        if (tries < YIELD_TRIES) {
+            Thread.yield();
+            return tries + 1;
+        }
+        LockSupport.parkNanos(PARK_NANOS);
+        return tries;
+    }
+
+    /**
+     * Execute and deliver everything already published, then stop both threads.
+     */
+    @Override
+    public void close() {
+        running = false;
+        Thread[] threads;
+        synchronized (this) {
+            threads = new Thread[] {businessThread, resultThread};
+        }
+        for (Thread thread : threads) {
+            if (thread == null) {
+                continue;
+            }
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}
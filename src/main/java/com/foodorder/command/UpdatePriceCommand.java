@@ -26,7 +26,7 @@ public class UpdatePriceCommand implements Command {
     public String execute() {
         try {
             Restaurant restaurant = restaurantService.updateItemPrice(restaurantId, itemId, newPrice);
-            return "Price updated successfully. Updated menu: " + restaurant.getMenu();
+            return "Price updated successfully. Updated menu: " + restaurant.getMenuSnapshot();
         } catch (Exception e) {
             return "Failed to update price: " + e.getMessage();
         }
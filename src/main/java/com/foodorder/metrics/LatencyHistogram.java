@@ -0,0 +1,131 @@
+package com.foodorder.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-size, lock-free histogram of non-negative long values such as latencies
+ * in nanoseconds.
+ * 
+ * Buckets are log-linear in the style of HdrHistogram: values below 64 are
+ * counted exactly, and every power of two above that is split into 32 linear
+ * sub-buckets, so any recorded value is reported within about 3% of its true
+ * value. Recording is a couple of atomic increments and never allocates.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_HALF = 1 << SUB_BUCKET_BITS;
+    private static final int LINEAR_LIMIT = SUB_BUCKET_HALF << 1;
+    private static final int BUCKET_COUNT = LINEAR_LIMIT + (63 - SUB_BUCKET_BITS - 1) * SUB_BUCKET_HALF;
+
+    private final AtomicLongArray counts;
+    private final LongAdder totalCount;
+    private final LongAdder totalSum;
+    private final AtomicLong maxValue;
+
+    public LatencyHistogram() {
+        this.counts = new AtomicLongArray(BUCKET_COUNT);
+        this.totalCount = new LongAdder();
+        this.totalSum = new LongAdder();
+        this.maxValue = new AtomicLong();
+    }
+
+    /**
+     * Record a value. Negative values are recorded as zero.
+     * 
+     * @param value The value to record
+     */
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        counts.incrementAndGet(bucketIndex(value));
+        totalCount.increment();
+        totalSum.add(value);
+        
+        long max = maxValue.get();
+        while (value > max && !maxValue.compareAndSet(max, value)) {
+            max = maxValue.get();
+        }
+    }
+
+    public long getCount() {
+        return totalCount.sum();
+    }
+
+    public long getMax() {
+        return maxValue.get();
+    }
+
+    public double getMean() {
+        long count = totalCount.sum();
+        return count == 0 ? 0.0 : (double) totalSum.sum() / count;
+    }
+
+    /**
+     * Get the value below which the given percentage of recorded values fall.
+     * 
+     * @param percentile Percentile between 0 and 100
+     * @return Upper bound of the bucket holding that percentile, or 0 if empty
+     */
+    public long getValueAtPercentile(double percentile) {
+        long count = totalCount.sum();
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(highestEquivalentValue(i), maxValue.get());
+            }
+        }
+        return maxValue.get();
+    }
+
+    /**
+     * Take an immutable summary of the histogram.
+     * 
+     * @return Snapshot with count, mean, percentiles and max
+     */
+    public HistogramSnapshot snapshot() {
+        return new HistogramSnapshot(getCount(), getMean(), getValueAtPercentile(50),
+                getValueAtPercentile(90), getValueAtPercentile(99), getValueAtPercentile(99.9), getMax());
+    }
+
+    /**
+     * Clear all recorded values.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts.set(i, 0);
+        }
+        totalCount.reset();
+        totalSum.reset();
+        maxValue.set(0);
+    }
+
+    static int bucketIndex(long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return LINEAR_LIMIT + (shift - 1) * SUB_BUCKET_HALF + (int) ((value >>> shift) - SUB_BUCKET_HALF);
+    }
+
+    static long lowestEquivalentValue(int index) {
+        if (index < LINEAR_LIMIT) {
+            return index;
+        }
+        int offset = index - LINEAR_LIMIT;
+        int shift = offset / SUB_BUCKET_HALF + 1;
+        long subBucket = offset % SUB_BUCKET_HALF + SUB_BUCKET_HALF;
+        return subBucket << shift;
+    }
+
+    static long highestEquivalentValue(int index) {
+        return index + 1 < BUCKET_COUNT ? lowestEquivalentValue(index + 1) - 1 : Long.MAX_VALUE;
+    }
+}
@@ -0,0 +1,195 @@
+package com.foodorder.metrics;
+
+import com.foodorder.model.Restaurant;
+import java.io.PrintStream;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Process-wide hot-path instrumentation.
+ * 
+ * Recording is disabled by default; while disabled every hook costs a single
+ * volatile read and records nothing. Timers follow the pattern
+ * {@code long start = Metrics.startTimer(); ...; Metrics.recordX(..., start);}
+ * where startTimer() returns 0 when disabled so no clock is read.
+ */
+public final class Metrics {
+    private static volatile boolean enabled;
+
+    private static final Map<Class<?>, LatencyHistogram> commandLatencies = new ConcurrentHashMap<>();
+    private static final Map<String, LatencyHistogram> selectionLatencies = new ConcurrentHashMap<>();
+    private static final LatencyHistogram restaurantsScanned = new LatencyHistogram();
+    private static final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+
+    public static final String ORDERS_REJECTED = "orders.rejected";
+    public static final String DUPLICATE_ORDER_IDS = "orders.duplicateId";
+    public static final String ORDERS_EXPIRED = "orders.expired";
+
+    private Metrics() {
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void enable() {
+        enabled = true;
+    }
+
+    public static void disable() {
+        enabled = false;
+    }
+
+    /**
+     * Clear everything recorded so far.
+     */
+    public static void reset() {
+        commandLatencies.clear();
+        selectionLatencies.clear();
+        restaurantsScanned.reset();
+        counters.clear();
+    }
+
+    /**
+     * Start timing an operation.
+     * 
+     * @return Start time in nanoseconds, or 0 when metrics are disabled
+     */
+    public static long startTimer() {
+        return enabled ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * Record the execution of a command, keyed by its type.
+     * 
+     * @param command The executed command
+     * @param startNanos Value returned by startTimer() before execution
+     */
+    public static void recordCommand(Object command, long startNanos) {
+        if (startNanos == 0L || !enabled) {
+            return;
+        }
+        histogram(commandLatencies, command.getClass()).record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Record one restaurant selection.
+     * 
+     * @param strategyName Name of the selection strategy
+     * @param startNanos Value returned by startTimer() before selection
+     */
+    public static void recordSelection(String strategyName, long startNanos) {
+        if (startNanos == 0L || !enabled) {
+            return;
+        }
+        histogram(selectionLatencies, strategyName).record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Record how many restaurants a single selection examined.
+     * 
+     * @param count Number of restaurants examined
+     */
+    public static void recordRestaurantsScanned(int count) {
+        if (enabled) {
+            restaurantsScanned.record(count);
+        }
+    }
+
+    /**
+     * Count an order that no restaurant could fulfill.
+     */
+    public static void orderRejected() {
+        increment(ORDERS_REJECTED);
+    }
+
+    /**
+     * Count an order placed with an ID that already exists.
+     */
+    public static void duplicateOrderId() {
+        increment(DUPLICATE_ORDER_IDS);
+    }
+
+    /**
+     * Count an order whose reservation expired before it was dispatched.
+     */
+    public static void orderExpired() {
+        increment(ORDERS_EXPIRED);
+    }
+
+    /**
+     * Increment a named counter.
+     * 
+     * @param name Counter name
+     */
+    public static void increment(String name) {
+        if (enabled) {
+            counters.computeIfAbsent(name, k -> new LongAdder()).increment();
+        }
+    }
+
+    /**
+     * Take a snapshot of everything recorded so far, plus the current utilization
+     * of the given restaurants.
+     * 
+     * @param restaurants Restaurants to report utilization for
+     * @return The snapshot
+     */
+    public static MetricsSnapshot snapshot(Collection<Restaurant> restaurants) {
+        Map<String, HistogramSnapshot> commands = new TreeMap<>();
+        for (Map.Entry<Class<?>, LatencyHistogram> entry : commandLatencies.entrySet()) {
+            commands.put(entry.getKey().getSimpleName(), entry.getValue().snapshot());
+        }
+        Map<String, HistogramSnapshot> selections = new TreeMap<>();
+        for (Map.Entry<String, LatencyHistogram> entry : selectionLatencies.entrySet()) {
+            selections.put(entry.getKey(), entry.getValue().snapshot());
+        }
+        Map<String, Long> counterValues = new TreeMap<>();
+        for (Map.Entry<String, LongAdder> entry : counters.entrySet()) {
+            counterValues.put(entry.getKey(), entry.getValue().sum());
+        }
+        Map<String, Double> utilization = new LinkedHashMap<>();
+        for (Restaurant restaurant : restaurants) {
+            utilization.put(restaurant.getRestaurantId(),
+                    restaurant.getMaxProcessingCapacity() == 0 ? 1.0
+                            : (double) restaurant.getCurrentOrderCount() / restaurant.getMaxProcessingCapacity());
+        }
+        return new MetricsSnapshot(commands, selections, restaurantsScanned.snapshot(), counterValues, utilization);
+    }
+
+    /**
+     * Print a snapshot periodically on a daemon thread.
+     * 
+     * @param restaurants Supplier of the restaurants to report utilization for
+     * @param period Time between dumps
+     * @param unit Unit of the period
+     * @param out Stream to print to
+     * @return Executor running the dumps; shut it down to stop them
+     */
+    public static ScheduledExecutorService startPeriodicDump(Supplier<Collection<Restaurant>> restaurants,
+                                                             long period, TimeUnit unit, PrintStream out) {
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics-dump");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleAtFixedRate(() -> out.println(snapshot(restaurants.get())), period, period, unit);
+        return executor;
+    }
+
+    private static <K> LatencyHistogram histogram(Map<K, LatencyHistogram> histograms, K key) {
+        LatencyHistogram histogram = histograms.get(key);
+        if (histogram == null) {
+            histogram = histograms.computeIfAbsent(key, k -> new LatencyHistogram());
+        }
+        return histogram;
+    }
+}
@@ -0,0 +1,105 @@
+package com.foodorder.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable point-in-time view of the recorded metrics.
+ */
+public final class MetricsSnapshot {
+    private static final int TOP_UTILIZED = 10;
+
+    private final Map<String, HistogramSnapshot> commandLatencies;
+    private final Map<String, HistogramSnapshot> selectionLatencies;
+    private final HistogramSnapshot restaurantsScanned;
+    private final Map<String, Long> counters;
+    private final Map<String, Double> utilization;
+
+    MetricsSnapshot(Map<String, HistogramSnapshot> commandLatencies, Map<String, HistogramSnapshot> selectionLatencies,
+                    HistogramSnapshot restaurantsScanned, Map<String, Long> counters, Map<String, Double> utilization) {
+        this.commandLatencies = Collections.unmodifiableMap(commandLatencies);
+        this.selectionLatencies = Collections.unmodifiableMap(selectionLatencies);
+        this.restaurantsScanned = restaurantsScanned;
+        this.counters = Collections.unmodifiableMap(counters);
+        this.utilization = Collections.unmodifiableMap(utilization);
+    }
+
+    /**
+     * @return Execution latency per command type, in nanoseconds
+     */
+    public Map<String, HistogramSnapshot> getCommandLatencies() {
+        return commandLatencies;
+    }
+
+    /**
+     * @return Selection latency per strategy name, in nanoseconds
+     */
+    public Map<String, HistogramSnapshot> getSelectionLatencies() {
+        return selectionLatencies;
+    }
+
+    /**
+     * @return Distribution of restaurants examined per selection
+     */
+    public HistogramSnapshot getRestaurantsScanned() {
+        return restaurantsScanned;
+    }
+
+    /**
+     * @return Counter values by name
+     */
+    public Map<String, Long> getCounters() {
+        return counters;
+    }
+
+    public long getCounter(String name) {
+        Long value = counters.get(name);
+        return value == null ? 0 : value;
+    }
+
+    /**
+     * @return Current orders divided by maximum capacity, per restaurant
+     */
+    public Map<String, Double> getUtilization() {
+        return utilization;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder("Metrics snapshot:\n");
+        for (Map.Entry<String, HistogramSnapshot> entry : commandLatencies.entrySet()) {
+            result.append("  command ").append(entry.getKey()).append(": ")
+                  .append(entry.getValue().toLatencyString()).append('\n');
+        }
+        for (Map.Entry<String, HistogramSnapshot> entry : selectionLatencies.entrySet()) {
+            result.append("  selection ").append(entry.getKey()).append(": ")
+                  .append(entry.getValue().toLatencyString()).append('\n');
+        }
+        result.append("  restaurants scanned per selection: ").append(restaurantsScanned).append('\n');
+        for (Map.Entry<String, Long> entry : counters.entrySet()) {
+            result.append("  ").append(entry.getKey()).append(": ").append(entry.getValue()).append('\n');
+        }
+        
+        if (!utilization.isEmpty()) {
+            double total = 0;
+            int saturated = 0;
+            for (double value : utilization.values()) {
+                total += value;
+                if (value >= 1.0) {
+                    saturated++;
+                }
+            }
+            result.append(String.format("  utilization: mean=%.1f%% saturated=%d/%d%n",
+                    100 * total / utilization.size(), saturated, utilization.size()));
+            
+            List<Map.Entry<String, Double>> busiest = new ArrayList<>(utilization.entrySet());
+            busiest.sort(Map.Entry.<String, Double>comparingByValue().reversed());
+            for (Map.Entry<String, Double> entry : busiest.subList(0, Math.min(TOP_UTILIZED, busiest.size()))) {
+                result.append(String.format("    %s: %.1f%%%n", entry.getKey(), 100 * entry.getValue()));
+            }
+        }
+        return result.toString();
+    }
+}
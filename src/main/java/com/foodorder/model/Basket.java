@@ -0,0 +1,214 @@
+package com.foodorder.model;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * The items of an order as distinct lines with quantities, in the order each item
+ * first appears. Ordering 40 of one item is a single line, so checking, pricing
+ * and counting an order costs per distinct item rather than per unit.
+ * Immutable.
+ */
+public final class Basket {
+    private final String[] itemIds;
+    private final int[] quantities;
+    private final int unitCount;
+    private final ItemSignature signature;
+
+    private Basket(String[] itemIds, int[] quantities) {
+        this.itemIds = itemIds;
+        this.quantities = quantities;
+        this.signature = ItemSignature.of(itemIds);
+        int units = 0;
+        for (int quantity : quantities) {
+            units = Math.addExact(units, quantity);
+        }
+        this.unitCount = units;
+    }
+
+    /**
+     * Build a basket from a flat list of item IDs, one entry per unit.
+     * 
+     * @param items List of item IDs, repeated items counting as quantities
+     * @return The basket
+     */
+    public static Basket of(List<String> items) {
+        Builder builder = new Builder();
+        for (String itemId : items) {
+            builder.add(itemId, 1);
+        }
+        return builder.build();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Get the number of distinct items.
+     */
+    public int size() {
+        return itemIds.length;
+    }
+
+    public boolean isEmpty() {
+        return itemIds.length == 0;
+    }
+
+    public String getItemId(int line) {
+        return itemIds[line];
+    }
+
+    public int getQuantity(int line) {
+        return quantities[line];
+    }
+
+    /**
+     * Get the total number of units over all lines.
+     */
+    public int getUnitCount() {
+        return unitCount;
+    }
+
+    /**
+     * Get the signature of the distinct items, for rejecting restaurants on their
+     * menu filter with Restaurant.mayServeAll() before exact checks.
+     */
+    public ItemSignature getSignature() {
+        return signature;
+    }
+
+    /**
+     * Get the basket as a flat read-only list with one entry per unit; nothing is copied.
+     */
+    public List<String> asList() {
+        return new UnitList();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder("[");
+        for (int line = 0; line < itemIds.length; line++) {
+            if (line > 0) {
+                result.append(", ");
+            }
+            result.append(itemIds[line]);
+            if (quantities[line] != 1) {
+                result.append('*').append(quantities[line]);
+            }
+        }
+        return result.append(']').toString();
+    }
+
+    /**
+     * Builder merging repeated items into one line. Cleared with clear(), one
+     * builder can be reused for any number of baskets without reallocating.
+     */
+    public static final class Builder {
+        // Past this many lines, repeated items are found through a hash index
+        private static final int LINEAR_SEARCH_LIMIT = 16;
+
+        private String[] itemIds = new String[8];
+        private int[] quantities = new int[8];
+        private int lines;
+        private Map<String, Integer> lineIndex;
+
+        private Builder() {
+        }
+
+        /**
+         * Add units of an item.
+         * 
+         * @param itemId ID of the item
+         * @param quantity Number of units, at least 1
+         * @return This builder
+         */
+        public Builder add(String itemId, int quantity) {
+            if (quantity <= 0) {
+                throw new IllegalArgumentException("Quantity of " + itemId + " must be positive: " + quantity);
+            }
+            int line = lineOf(itemId);
+            if (line >= 0) {
+                quantities[line] = Math.addExact(quantities[line], quantity);
+                return this;
+            }
+            
+            if (lines == itemIds.length) {
+                itemIds = Arrays.copyOf(itemIds, lines * 2);
+                quantities = Arrays.copyOf(quantities, lines * 2);
+            }
+            itemIds[lines] = itemId;
+            quantities[lines] = quantity;
+            lines++;
+            if (lineIndex != null) {
+                lineIndex.put(itemId, lines - 1);
+            } else if (lines > LINEAR_SEARCH_LIMIT) {
+                lineIndex = new HashMap<>();
+                for (int i = 0; i < lines; i++) {
+                    lineIndex.put(itemIds[i], i);
+                }
+            }
+            return this;
+        }
+
+        private int lineOf(String itemId) {
+            if (lineIndex != null) {
+                Integer line = lineIndex.get(itemId);
+                return line == null ? -1 : line;
+            }
+            for (int line = 0; line < lines; line++) {
+                if (itemIds[line].equals(itemId)) {
+                    return line;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Remove every line, keeping the allocated buffers.
+         * 
+         * @return This builder
+         */
+        public Builder clear() {
+            Arrays.fill(itemIds, 0, lines, null);
+            lines = 0;
+            lineIndex = null;
+            return this;
+        }
+
+        public Basket build() {
+            return new Basket(Arrays.copyOf(itemIds, lines), Arrays.copyOf(quantities, lines));
+        }
+    }
+
+    private final class UnitList extends AbstractList<String> implements RandomAccess {
+        @Override
+        public String get(int index) {
+            if (index < 0) {
+                throw new IndexOutOfBoundsException("Index: " + index);
+            }
+            int remaining = index;
+            for (int line = 0; line < itemIds.length; line++) {
+                if (remaining < quantities[line]) {
+                    return itemIds[line];
+                }
+                remaining -= quantities[line];
+            }
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + unitCount);
+        }
+
+        @Override
+        public int size() {
+            return unitCount;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return Arrays.asList(itemIds).contains(o);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.foodorder.model;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Dictionary encoding of string IDs as dense integer codes.
+ * 
+ * Orders store item and restaurant IDs as codes, so each distinct ID is held in
+ * memory once instead of once per order. Codes are assigned on first use and never
+ * reused; lookups in both directions are lock-free.
+ */
+public final class IdDictionary {
+    /** Dictionary of menu item IDs. */
+    public static final IdDictionary ITEMS = new IdDictionary();
+    /** Dictionary of restaurant IDs. */
+    public static final IdDictionary RESTAURANTS = new IdDictionary();
+
+    private final Map<String, Integer> codes;
+    private volatile String[] ids;
+    private int size;
+
+    public IdDictionary() {
+        this.codes = new ConcurrentHashMap<>();
+        this.ids = new String[64];
+    }
+
+    /**
+     * Get the code of an ID, assigning the next free code on first use.
+     * 
+     * @param id The ID to encode
+     * @return The ID's code
+     */
+    public int encode(String id) {
+        Integer code = codes.get(id);
+        if (code != null) {
+            return code;
+        }
+        synchronized (this) {
+            code = codes.get(id);
+            if (code != null) {
+                return code;
+            }
+            String[] current = ids;
+            if (size == current.length) {
+                current = Arrays.copyOf(current, current.length * 2);
+            }
+            current[size] = id;
+            // Publish the array before the code, so any holder of the code can decode it
+            ids = current;
+            codes.put(id, size);
+            return size++;
+        }
+    }
+
+    /**
+     * Get the code of an ID without assigning one.
+     * 
+     * @param id The ID to look up
+     * @return The ID's code, or -1 if it has never been encoded
+     */
+    public int lookup(String id) {
+        Integer code = codes.get(id);
+        return code != null ? code : -1;
+    }
+
+    /**
+     * Get the ID for a code returned by encode().
+     * 
+     * @param code The code to decode
+     * @return The ID
+     */
+    public String decode(int code) {
+        return ids[code];
+    }
+
+    /**
+     * Get the number of distinct IDs encoded so far.
+     * 
+     * @return Dictionary size
+     */
+    public int size() {
+        return codes.size();
+    }
+}
@@ -0,0 +1,169 @@
+package com.foodorder.model;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Per-item served counters for one restaurant's menu.
+ * 
+ * Every menu item gets a fixed slot in a primitive counter array. Slots are found
+ * through an open-addressing table keyed by the item's IdDictionary code, which is
+ * built once and only read afterwards, so counting needs no locks and no boxing.
+ */
+final class ItemCounters {
+    private final String[] itemIds;
+    private final int[] codeTable;
+    private final int[] slotTable;
+    private final int mask;
+    private final AtomicLongArray counts;
+
+    ItemCounters(Collection<String> menuItemIds) {
+        this.itemIds = menuItemIds.toArray(new String[0]);
+        int capacity = Integer.highestOneBit(Math.max(4, itemIds.length * 2 - 1)) << 1;
+        this.codeTable = new int[capacity];
+        this.slotTable = new int[capacity];
+        this.mask = capacity - 1;
+        this.counts = new AtomicLongArray(itemIds.length);
+        
+        for (int slot = 0; slot < itemIds.length; slot++) {
+            // Codes are stored plus one so that zero marks an empty bucket
+            int code = IdDictionary.ITEMS.encode(itemIds[slot]) + 1;
+            int bucket = mix(code) & mask;
+            while (codeTable[bucket] != 0) {
+                bucket = (bucket + 1) & mask;
+            }
+            codeTable[bucket] = code;
+            slotTable[bucket] = slot;
+        }
+    }
+
+    /**
+     * Find the slot of an item by its IdDictionary code.
+     * 
+     * @return The slot, or -1 if the item is not on the menu
+     */
+    int slotOf(int itemCode) {
+        int code = itemCode + 1;
+        int bucket = mix(code) & mask;
+        int probe;
+        while ((probe = codeTable[bucket]) != 0) {
+            if (probe == code) {
+                return slotTable[bucket];
+            }
+            bucket = (bucket + 1) & mask;
+        }
+        return -1;
+    }
+
+    int slotOf(String itemId) {
+        int code = IdDictionary.ITEMS.lookup(itemId);
+        return code < 0 ? -1 : slotOf(code);
+    }
+
+    void add(int slot, long delta) {
+        counts.addAndGet(slot, delta);
+    }
+
+    long get(int slot) {
+        return counts.get(slot);
+    }
+
+    /**
+     * Take an immutable snapshot of the non-zero counters. The counters are copied
+     * into one primitive array; entries are materialized only when iterated.
+     */
+    Map<String, Integer> snapshot() {
+        long[] copy = new long[itemIds.length];
+        int size = 0;
+        for (int slot = 0; slot < copy.length; slot++) {
+            copy[slot] = counts.get(slot);
+            if (copy[slot] != 0) {
+                size++;
+            }
+        }
+        return new Snapshot(itemIds, copy, size);
+    }
+
+    private static int mix(int code) {
+        int h = code * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static final class Snapshot extends AbstractMap<String, Integer> {
+        private final String[] itemIds;
+        private final long[] counts;
+        private final int size;
+
+        Snapshot(String[] itemIds, long[] counts, int size) {
+            this.itemIds = itemIds;
+            this.counts = counts;
+            this.size = size;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public Integer get(Object key) {
+            for (int slot = 0; slot < itemIds.length; slot++) {
+                if (counts[slot] != 0 && itemIds[slot].equals(key)) {
+                    return (int) counts[slot];
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public Set<Map.Entry<String, Integer>> entrySet() {
+            return new AbstractSet<Map.Entry<String, Integer>>() {
+                @Override
+                public int size() {
+                    return size;
+                }
+
+                @Override
+                public Iterator<Map.Entry<String, Integer>> iterator() {
+                    return new Iterator<Map.Entry<String, Integer>>() {
+                        private int slot = advance(0);
+
+                        private int advance(int from) {
+                            while (from < counts.length && counts[from] == 0) {
+                                from++;
+                            }
+                            return from;
+                        }
+
+                        @Override
+                        public boolean hasNext() {
+                            return slot < counts.length;
+                        }
+
+                        @Override
+                        public Map.Entry<String, Integer> next() {
+                            if (slot >= counts.length) {
+                                throw new NoSuchElementException();
+                            }
+                            Map.Entry<String, Integer> entry =
+                                    new SimpleImmutableEntry<>(itemIds[slot], (int) counts[slot]);
+                            slot = advance(slot + 1);
+                            return entry;
+                        }
+                    };
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.foodorder.model;
+
+import java.util.Collection;
+
+/**
+ * A blocked Bloom filter over a menu's item IDs, sized from the menu.
+ * 
+ * The filter has about BITS_PER_ENTRY bits per item, rounded up to a power of two
+ * number of 64-bit words, so the false-positive rate stays near 2% whatever the
+ * menu size. Each item sets ItemSignature.BITS_PER_ITEM bits within a single word,
+ * so testing an item costs one word read. A menu that fails the test certainly
+ * lacks one of the items; one that passes still needs the exact check. Immutable.
+ */
+public final class ItemFilter {
+    private static final int BITS_PER_ENTRY = 10;
+
+    private final long[] words;
+    private final int wordMask;
+
+    private ItemFilter(long[] words) {
+        this.words = words;
+        this.wordMask = words.length - 1;
+    }
+
+    /**
+     * Build the filter of a set of item IDs.
+     * 
+     * @param itemIds The distinct item IDs
+     * @return The filter
+     */
+    public static ItemFilter of(Collection<String> itemIds) {
+        int wordsNeeded = (int) Math.max(1, ((long) itemIds.size() * BITS_PER_ENTRY + 63) / 64);
+        int size = wordsNeeded == 1 ? 1 : Integer.highestOneBit(wordsNeeded - 1) << 1;
+        long[] words = new long[size];
+        for (String itemId : itemIds) {
+            long hash = ItemSignature.hash(itemId);
+            words[ItemSignature.selector(hash) & (size - 1)] |= ItemSignature.mask(hash);
+        }
+        return new ItemFilter(words);
+    }
+
+    /**
+     * Check whether every item of a signature may be in the filter.
+     * 
+     * @param items The signature to test, typically a basket's
+     * @return False if some item of the signature is certainly missing
+     */
+    public boolean mayContainAll(ItemSignature items) {
+        for (int i = 0; i < items.size(); i++) {
+            long mask = items.maskAt(i);
+            if ((words[items.selectorAt(i) & wordMask] & mask) != mask) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,85 @@
+package com.foodorder.model;
+
+/**
+ * The items of a basket in the form an ItemFilter is probed with: for each
+ * distinct item, the filter word it maps to and the bits it sets in that word.
+ * 
+ * Both are derived from one hash per item and do not depend on the filter's size,
+ * so a basket computes them once and tests any number of menus with one AND per
+ * item. Immutable.
+ */
+public final class ItemSignature {
+    /**
+     * Bits set per item within its filter word.
+     */
+    static final int BITS_PER_ITEM = 3;
+
+    private final int[] selectors;
+    private final long[] masks;
+
+    private ItemSignature(int[] selectors, long[] masks) {
+        this.selectors = selectors;
+        this.masks = masks;
+    }
+
+    /**
+     * Build the signature of a set of item IDs.
+     * 
+     * @param itemIds The distinct item IDs
+     * @return The signature
+     */
+    public static ItemSignature of(String[] itemIds) {
+        int[] selectors = new int[itemIds.length];
+        long[] masks = new long[itemIds.length];
+        for (int i = 0; i < itemIds.length; i++) {
+            long hash = hash(itemIds[i]);
+            selectors[i] = selector(hash);
+            masks[i] = mask(hash);
+        }
+        return new ItemSignature(selectors, masks);
+    }
+
+    int size() {
+        return selectors.length;
+    }
+
+    int selectorAt(int i) {
+        return selectors[i];
+    }
+
+    long maskAt(int i) {
+        return masks[i];
+    }
+
+    /**
+     * Murmur3's 64-bit finalizer over the item ID's hash code, so every bit of the
+     * result depends on every bit of the input.
+     */
+    static long hash(String itemId) {
+        long h = itemId.hashCode();
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * The high half of the hash picks the word; filters mask it to their size.
+     */
+    static int selector(long hash) {
+        return (int) (hash >>> 32);
+    }
+
+    /**
+     * Bit positions from consecutive 6-bit fields of the low half of the hash.
+     */
+    static long mask(long hash) {
+        long mask = 0;
+        for (int i = 0; i < BITS_PER_ITEM; i++) {
+            mask |= 1L << ((hash >>> (6 * i)) & 63);
+        }
+        return mask;
+    }
+}
@@ -3,10 +3,13 @@ package com.foodorder.model;
 /**
  * Represents an item in a restaurant's menu with its price.
  * Updated for Java 8.
+ * 
+ * Immutable, so menus and menu snapshots can share items; a price update
+ * replaces the item.
  */
 public class MenuItem {
     private final String itemId;
-    private double price;
+    private final double price;
 
     public MenuItem(String itemId, double price) {
         this.itemId = itemId;
@@ -21,10 +24,6 @@ public class MenuItem {
         return price;
     }
 
-    public void setPrice(double price) {
-        this.price = price;
-    }
-
     @Override
     public String toString() {
         return "MenuItem{" +
@@ -0,0 +1,89 @@
+package com.foodorder.model;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable view of a restaurant's menu at one price version.
+ * 
+ * A restaurant builds a new snapshot on onboarding and on every price update, so
+ * readers share it without copying. Menu items are immutable, so the snapshot
+ * holds the same items as the menu it was taken from. The rendered text is built
+ * once per snapshot.
+ */
+public final class MenuSnapshot {
+    private final long version;
+    private final Map<String, MenuItem> items;
+    private final Map<String, Double> prices;
+    private final String text;
+
+    MenuSnapshot(long version, Map<String, MenuItem> menu) {
+        this.version = version;
+        Map<String, MenuItem> itemsCopy = new HashMap<>(menu);
+        Map<String, Double> itemPrices = new HashMap<>();
+        for (Map.Entry<String, MenuItem> entry : itemsCopy.entrySet()) {
+            itemPrices.put(entry.getKey(), entry.getValue().getPrice());
+        }
+        this.items = Collections.unmodifiableMap(itemsCopy);
+        this.prices = Collections.unmodifiableMap(itemPrices);
+        this.text = itemsCopy.toString();
+    }
+
+    /**
+     * Get the restaurant's price version this snapshot was taken at.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return Unmodifiable map of item IDs to menu items
+     */
+    public Map<String, MenuItem> getItems() {
+        return items;
+    }
+
+    /**
+     * @return Unmodifiable map of item IDs to prices
+     */
+    public Map<String, Double> getPrices() {
+        return prices;
+    }
+
+    /**
+     * Get the price of an item at this version.
+     * 
+     * @param itemId ID of the menu item
+     * @return The price
+     */
+    public double getPrice(String itemId) {
+        MenuItem item = items.get(itemId);
+        if (item == null) {
+            throw new IllegalArgumentException("Item " + itemId + " not found in menu");
+        }
+        return item.getPrice();
+    }
+
+    /**
+     * Get the total price of a basket with every line priced at this version.
+     * 
+     * @param basket The basket, all of whose items must be on the menu
+     * @return The total price
+     */
+    public double getTotalPrice(Basket basket) {
+        double total = 0.0;
+        for (int line = 0; line < basket.size(); line++) {
+            total += getPrice(basket.getItemId(line)) * basket.getQuantity(line);
+        }
+        return total;
+    }
+
+    /**
+     * @return The menu rendered as text, cached with the snapshot
+     */
+    @Override
+    public String toString() {
+        return text;
+    }
+}
@@ -1,24 +1,50 @@
 package com.foodorder.model;
 
+import java.util.AbstractList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.ArrayList;
+import java.util.RandomAccess;
 
 /**
  * Represents a customer order with items and associated restaurant.
  * Updated for Java 8.
+ * 
+ * Orders are stored compactly: item and restaurant IDs are dictionary-encoded
+ * into integer codes (see IdDictionary), the items are kept as distinct lines in
+ * an int[] with their quantities alongside and the total is kept in fixed-point cents.
  */
 public class Order {
     private final String orderId;
-    private final List<String> items;
-    private final String restaurantId;
-    private final double totalAmount;
-    private boolean dispatched;
+    private final int[] itemCodes;
+    // Null when every line has quantity 1, the common case
+    private final int[] quantities;
+    private final int unitCount;
+    private final int restaurantCode;
+    private final long totalCents;
+    private volatile boolean dispatched;
 
     public Order(String orderId, List<String> items, String restaurantId, double totalAmount) {
+        this(orderId, Basket.of(items), restaurantId, totalAmount);
+    }
+
+    public Order(String orderId, Basket basket, String restaurantId, double totalAmount) {
         this.orderId = orderId;
-        this.items = new ArrayList<>(items);
-        this.restaurantId = restaurantId;
-        this.totalAmount = totalAmount;
+        this.itemCodes = new int[basket.size()];
+        int[] lineQuantities = null;
+        for (int line = 0; line < itemCodes.length; line++) {
+            itemCodes[line] = IdDictionary.ITEMS.encode(basket.getItemId(line));
+            if (basket.getQuantity(line) != 1) {
+                if (lineQuantities == null) {
+                    lineQuantities = new int[itemCodes.length];
+                    Arrays.fill(lineQuantities, 1);
+                }
+                lineQuantities[line] = basket.getQuantity(line);
+            }
+        }
+        this.quantities = lineQuantities;
+        this.unitCount = basket.getUnitCount();
+        this.restaurantCode = IdDictionary.RESTAURANTS.encode(restaurantId);
+        this.totalCents = Math.round(totalAmount * 100);
         this.dispatched = false;
     }
 
@@ -26,16 +52,52 @@ public class Order {
         return orderId;
     }
 
+    /**
+     * Get the ordered items as a read-only view with one entry per unit; nothing is copied.
+     */
     public List<String> getItems() {
-        return new ArrayList<>(items);
+        return new ItemList();
+    }
+
+    /**
+     * Get the number of distinct items, i.e. of lines.
+     */
+    public int getLineCount() {
+        return itemCodes.length;
+    }
+
+    public String getItem(int line) {
+        return IdDictionary.ITEMS.decode(itemCodes[line]);
+    }
+
+    /**
+     * Get the IdDictionary.ITEMS code of the item on the given line.
+     */
+    public int getItemCode(int line) {
+        return itemCodes[line];
+    }
+
+    public int getQuantity(int line) {
+        return quantities == null ? 1 : quantities[line];
+    }
+
+    /**
+     * Get the total number of units over all lines.
+     */
+    public int getUnitCount() {
+        return unitCount;
     }
 
     public String getRestaurantId() {
-        return restaurantId;
+        return IdDictionary.RESTAURANTS.decode(restaurantCode);
     }
 
     public double getTotalAmount() {
-        return totalAmount;
+        return totalCents / 100.0;
+    }
+
+    public long getTotalCents() {
+        return totalCents;
     }
 
     public boolean isDispatched() {
@@ -48,12 +110,68 @@ public class Order {
 
     @Override
     public String toString() {
-        return "Order{" +
-               "orderId='" + orderId + '\'' +
-               ", items=" + items +
-               ", restaurantId='" + restaurantId + '\'' +
-               ", totalAmount=" + String.format("%.2f", totalAmount) +
-               ", dispatched=" + dispatched +
-               '}';
-    }
-} 
\ No newline at end of file
+        return appendTo(new StringBuilder(96)).toString();
+    }
+
+    /**
+     * Append the same text as toString() to a builder without creating intermediate
+     * strings. Items are rendered one line each, as "item*quantity" when more than
+     * one unit is ordered.
+     * 
+     * @param out The builder to append to
+     * @return The builder
+     */
+    public StringBuilder appendTo(StringBuilder out) {
+        out.append("Order{orderId='").append(orderId).append("', items=[");
+        for (int line = 0; line < itemCodes.length; line++) {
+            if (line > 0) {
+                out.append(", ");
+            }
+            out.append(getItem(line));
+            if (getQuantity(line) != 1) {
+                out.append('*').append(getQuantity(line));
+            }
+        }
+        out.append("], restaurantId='").append(getRestaurantId()).append("', totalAmount=");
+        appendCents(out, totalCents);
+        return out.append(", dispatched=").append(dispatched).append('}');
+    }
+
+    /**
+     * Append an amount held in cents with two decimals, the same text "%.2f" gives
+     * for the amount in currency units.
+     */
+    private static void appendCents(StringBuilder out, long cents) {
+        if (cents < 0) {
+            out.append('-');
+        }
+        long fraction = Math.abs(cents % 100);
+        out.append(Math.abs(cents / 100)).append('.');
+        if (fraction < 10) {
+            out.append('0');
+        }
+        out.append(fraction);
+    }
+
+    private final class ItemList extends AbstractList<String> implements RandomAccess {
+        @Override
+        public String get(int index) {
+            if (quantities == null) {
+                return getItem(index);
+            }
+            int remaining = index;
+            for (int line = 0; line < itemCodes.length; line++) {
+                if (remaining < quantities[line]) {
+                    return getItem(line);
+                }
+                remaining -= quantities[line];
+            }
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + unitCount);
+        }
+
+        @Override
+        public int size() {
+            return unitCount;
+        }
+    }
+}
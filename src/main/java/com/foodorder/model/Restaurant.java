@@ -4,18 +4,26 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.HashSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Represents a restaurant with its menu, processing capacity, and current orders.
  * Updated for Java 8.
+ * 
+ * Safe for concurrent use: capacity is reserved with an atomic check-and-increment,
+ * so the restaurant never holds more than maxProcessingCapacity orders.
  */
 public class Restaurant {
     private final String restaurantId;
     private final Map<String, MenuItem> menu;
+    private final ItemFilter menuFilter;
     private final int maxProcessingCapacity;
     private final Set<String> currentOrders;
-    private final Map<String, Integer> itemsServed;
+    private final AtomicInteger currentOrderCount;
+    private final ItemCounters itemsServed;
+    private volatile MenuSnapshot menuSnapshot;
+    private volatile RestaurantLoadListener loadListener;
 
     public Restaurant(String restaurantId, List<MenuItem> menuItems, int maxProcessingCapacity) {
         this.restaurantId = restaurantId;
@@ -23,17 +31,32 @@ public class Restaurant {
         for (MenuItem item : menuItems) {
             this.menu.put(item.getItemId(), item);
         }
+        this.menuFilter = ItemFilter.of(menu.keySet());
         this.maxProcessingCapacity = maxProcessingCapacity;
-        this.currentOrders = new HashSet<>();
-        this.itemsServed = new HashMap<>();
+        this.currentOrders = ConcurrentHashMap.newKeySet();
+        this.currentOrderCount = new AtomicInteger();
+        this.itemsServed = new ItemCounters(menu.keySet());
+        this.menuSnapshot = new MenuSnapshot(0, menu);
     }
 
     public String getRestaurantId() {
         return restaurantId;
     }
 
+    /**
+     * Get the menu as of the latest price update, without copying it.
+     * 
+     * @return Unmodifiable map of item IDs to menu items
+     */
     public Map<String, MenuItem> getMenu() {
-        return new HashMap<>(menu);
+        return menuSnapshot.getItems();
+    }
+
+    /**
+     * Get the immutable menu snapshot, rebuilt on every price update.
+     */
+    public MenuSnapshot getMenuSnapshot() {
+        return menuSnapshot;
     }
 
     public int getMaxProcessingCapacity() {
@@ -41,62 +64,226 @@ public class Restaurant {
     }
 
     public int getCurrentOrderCount() {
-        return currentOrders.size();
+        return currentOrderCount.get();
+    }
+
+    public int getRemainingCapacity() {
+        return maxProcessingCapacity - currentOrderCount.get();
+    }
+
+    public void setLoadListener(RestaurantLoadListener loadListener) {
+        this.loadListener = loadListener;
     }
 
     public boolean hasCapacity() {
-        return currentOrders.size() < maxProcessingCapacity;
+        return currentOrderCount.get() < maxProcessingCapacity;
     }
 
     public boolean hasItem(String itemId) {
         return menu.containsKey(itemId);
     }
 
+    /**
+     * Quick test against the menu's Bloom filter, built at onboarding.
+     * A false result means some item is certainly not served; a true result must
+     * still be confirmed with hasItem().
+     * 
+     * @param items Signature of the items to test
+     * @return False if the restaurant cannot serve all the items
+     */
+    public boolean mayServeAll(ItemSignature items) {
+        return menuFilter.mayContainAll(items);
+    }
+
+    /**
+     * Get a menu item as of the latest price update. To price several items at one
+     * version, read the snapshot once.
+     */
     public MenuItem getMenuItem(String itemId) {
-        return menu.get(itemId);
+        return menuSnapshot.getItems().get(itemId);
+    }
+
+    /**
+     * Get the menu price version, incremented on every price update.
+     * Anything derived from menu prices can be keyed on it to detect staleness.
+     */
+    public long getPriceVersion() {
+        return menuSnapshot.getVersion();
     }
 
     public void updateItemPrice(String itemId, double newPrice) {
         if (menu.containsKey(itemId)) {
-            menu.get(itemId).setPrice(newPrice);
+            // Serialized, so the published snapshot is always the latest one. Readers
+            // only see whole snapshots, never the working menu being changed here.
+            synchronized (menu) {
+                menu.put(itemId, new MenuItem(itemId, newPrice));
+                menuSnapshot = new MenuSnapshot(menuSnapshot.getVersion() + 1, menu);
+            }
         } else {
             throw new IllegalArgumentException("Item " + itemId + " not found in restaurant " + restaurantId);
         }
     }
 
     public boolean addOrder(String orderId) {
-        if (hasCapacity()) {
-            currentOrders.add(orderId);
-            return true;
+        // Reserve a slot atomically so concurrent callers cannot overshoot capacity
+        int count;
+        do {
+            count = currentOrderCount.get();
+            if (count >= maxProcessingCapacity) {
+                return false;
+            }
+        } while (!currentOrderCount.compareAndSet(count, count + 1));
+        
+        currentOrders.add(orderId);
+        notifyLoadChanged();
+        return true;
+    }
+
+    /**
+     * Take a slot for an order regardless of capacity, e.g. when replaying the WAL.
+     * Changes to different orders can be logged in a different order than they
+     * took and freed slots, so a replayed placement may briefly exceed capacity
+     * until the dispatch or expiry that made room for it is replayed.
+     */
+    public void restoreOrder(String orderId) {
+        if (currentOrders.add(orderId)) {
+            currentOrderCount.incrementAndGet();
+            notifyLoadChanged();
+        }
+    }
+
+    /**
+     * Reserve up to count slots in a single atomic update, e.g. for a batch of orders.
+     * Each reserved slot must then be taken by attachOrder() or given back with
+     * releaseReservations().
+     * 
+     * @return Number of slots reserved, at most count
+     */
+    public int reserve(int count) {
+        int current;
+        int granted;
+        do {
+            current = currentOrderCount.get();
+            granted = Math.min(count, maxProcessingCapacity - current);
+            if (granted <= 0) {
+                return 0;
+            }
+        } while (!currentOrderCount.compareAndSet(current, current + granted));
+        
+        notifyLoadChanged();
+        return granted;
+    }
+
+    /**
+     * Record an order as holding a slot previously reserved with reserve().
+     */
+    public void attachOrder(String orderId) {
+        currentOrders.add(orderId);
+    }
+
+    /**
+     * Give back reserved slots that were not attached to an order.
+     */
+    public void releaseReservations(int count) {
+        if (count > 0) {
+            currentOrderCount.addAndGet(-count);
+            notifyLoadChanged();
         }
-        return false;
+    }
+
+    /**
+     * Free the slot held by an order that will not be dispatched, e.g. because its
+     * reservation expired.
+     * 
+     * @return True if the order held a slot here
+     */
+    public boolean releaseOrder(String orderId) {
+        if (!currentOrders.remove(orderId)) {
+            return false;
+        }
+        currentOrderCount.decrementAndGet();
+        notifyLoadChanged();
+        return true;
     }
 
     public void dispatchOrder(String orderId, List<String> items) {
-        if (currentOrders.contains(orderId)) {
-            currentOrders.remove(orderId);
+        if (currentOrders.remove(orderId)) {
+            currentOrderCount.decrementAndGet();
             
             // Update items served count
             for (String itemId : items) {
-                Integer count = itemsServed.getOrDefault(itemId, 0);
-                itemsServed.put(itemId, count + 1);
+                countServed(itemsServed.slotOf(itemId), 1);
             }
+            notifyLoadChanged();
         } else {
             throw new IllegalArgumentException("Order " + orderId + " not found in restaurant " + restaurantId);
         }
     }
 
+    /**
+     * Dispatch an order, reading its items in place instead of copying them.
+     */
+    public void dispatchOrder(Order order) {
+        if (currentOrders.remove(order.getOrderId())) {
+            currentOrderCount.decrementAndGet();
+            
+            // Update items served count
+            for (int line = 0; line < order.getLineCount(); line++) {
+                countServed(itemsServed.slotOf(order.getItemCode(line)), order.getQuantity(line));
+            }
+            notifyLoadChanged();
+        } else {
+            throw new IllegalArgumentException("Order " + order.getOrderId() + " not found in restaurant " + restaurantId);
+        }
+    }
+
+    private void notifyLoadChanged() {
+        RestaurantLoadListener listener = loadListener;
+        if (listener != null) {
+            listener.onLoadChanged(this);
+        }
+    }
+
+    private void countServed(int slot, long count) {
+        // Orders only hold items on the menu, which all have a slot
+        if (slot >= 0) {
+            itemsServed.add(slot, count);
+        }
+    }
+
+    /**
+     * Add to the served count of an item, e.g. when restoring saved state.
+     */
+    public void restoreItemsServed(String itemId, int count) {
+        int slot = itemsServed.slotOf(itemId);
+        if (slot < 0) {
+            throw new IllegalArgumentException("Item " + itemId + " not found in restaurant " + restaurantId);
+        }
+        itemsServed.add(slot, count);
+    }
+
+    /**
+     * Get how many times an item has been served, without taking a snapshot.
+     */
+    public long getItemServedCount(String itemId) {
+        int slot = itemsServed.slotOf(itemId);
+        return slot < 0 ? 0 : itemsServed.get(slot);
+    }
+
+    /**
+     * Get an immutable snapshot of the items served so far, with their counts.
+     */
     public Map<String, Integer> getItemsServed() {
-        return new HashMap<>(itemsServed);
+        return itemsServed.snapshot();
     }
 
     @Override
     public String toString() {
         return "Restaurant{" +
                "restaurantId='" + restaurantId + '\'' +
-               ", menu=" + menu +
+               ", menu=" + menuSnapshot +
                ", maxProcessingCapacity=" + maxProcessingCapacity +
-               ", currentOrders=" + currentOrders.size() +
+               ", currentOrders=" + currentOrderCount.get() +
                '}';
     }
 } 
\ No newline at end of file
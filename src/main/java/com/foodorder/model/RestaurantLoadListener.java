@@ -0,0 +1,13 @@
+package com.foodorder.model;
+
+/**
+ * Listener notified whenever a restaurant's current order count changes.
+ */
+public interface RestaurantLoadListener {
+    /**
+     * Called after an order has been added to or dispatched from the restaurant.
+     * 
+     * @param restaurant The restaurant whose load changed
+     */
+    void onLoadChanged(Restaurant restaurant);
+}
@@ -0,0 +1,285 @@
+package com.foodorder.persistence;
+
+import com.foodorder.model.MenuItem;
+import com.foodorder.model.Order;
+import com.foodorder.model.Restaurant;
+import com.foodorder.service.OrderService;
+import com.foodorder.service.RestaurantService;
+import com.foodorder.service.StateChangeListener;
+import com.foodorder.strategy.StrategyFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Makes restaurant and order state durable with a write-ahead log and periodic snapshots.
+ * 
+ * Every applied state change is appended to the WAL. Every snapshotInterval records,
+ * a snapshot of the whole state is written and the WAL segments it covers are
+ * deleted, so recovery loads one snapshot and replays at most one interval of records.
+ * 
+ * A snapshot holds every order lock while it captures the state, so orders placed,
+ * dispatched or expired concurrently, e.g. by the command server's connection
+ * threads or the reservation timer, are either fully in it or logged after it.
+ * Automatic snapshots are therefore taken on a background thread rather than on
+ * the thread that applied the change, which still holds its order lock. Writing
+ * and syncing the snapshot happen after the locks are released. Restaurant
+ * changes are not paused; replaying records a snapshot already reflects is
+ * harmless, as every record is applied idempotently.
+ */
+public class PersistenceManager implements StateChangeListener, Closeable {
+    public static final long DEFAULT_COMMIT_INTERVAL_MILLIS = 2;
+    public static final int DEFAULT_SNAPSHOT_INTERVAL = 100_000;
+
+    private static final byte ONBOARD = 1;
+    private static final byte UPDATE_PRICE = 2;
+    private static final byte PLACE_ORDER = 3;
+    private static final byte DISPATCH_ORDER = 4;
+    private static final byte CHANGE_STRATEGY = 5;
+    private static final byte EXPIRE_ORDER = 6;
+
+    private final RestaurantService restaurantService;
+    private final OrderService orderService;
+    private final WriteAheadLog wal;
+    private final SnapshotStore snapshots;
+    private final int snapshotInterval;
+    private final Object snapshotLock;
+    private final AtomicLong recordsSinceSnapshot;
+    private final AtomicBoolean snapshotScheduled;
+    private final ExecutorService snapshotter;
+
+    /**
+     * Open the WAL and snapshot store in the given directory.
+     * 
+     * @param dataDirectory Directory holding the WAL segments and snapshots
+     * @param restaurantService Restaurant state to persist
+     * @param orderService Order state to persist
+     * @param snapshotInterval Number of WAL records between snapshots, 0 to disable automatic snapshots
+     * @param waitForCommit Whether each change blocks until its record is on disk
+     * @throws IOException If the directory cannot be opened
+     */
+    public PersistenceManager(Path dataDirectory, RestaurantService restaurantService, OrderService orderService,
+                              int snapshotInterval, boolean waitForCommit) throws IOException {
+        if (snapshotInterval < 0) {
+            throw new IllegalArgumentException("Snapshot interval must not be negative");
+        }
+        this.restaurantService = restaurantService;
+        this.orderService = orderService;
+        this.wal = new WriteAheadLog(dataDirectory, DEFAULT_COMMIT_INTERVAL_MILLIS, waitForCommit);
+        this.snapshots = new SnapshotStore(dataDirectory);
+        this.snapshotInterval = snapshotInterval;
+        this.snapshotLock = new Object();
+        this.recordsSinceSnapshot = new AtomicLong();
+        this.snapshotScheduled = new AtomicBoolean();
+        this.snapshotter = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "persistence-snapshotter");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Restore the latest snapshot and replay the WAL records after it into the
+     * (empty) services, then start logging their changes.
+     * 
+     * @return Number of WAL records replayed
+     * @throws IOException If the snapshot or WAL cannot be read
+     */
+    public long recover() throws IOException {
+        long snapshotLsn = snapshots.loadLatest(restaurantService, orderService);
+        long[] replayed = {0};
+        try {
+            WriteAheadLog.read(wal.getDirectory(), snapshotLsn, record -> {
+                apply(record);
+                replayed[0]++;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        
+        recordsSinceSnapshot.set(replayed[0]);
+        restaurantService.setStateChangeListener(this);
+        orderService.setStateChangeListener(this);
+        return replayed[0];
+    }
+
+    /**
+     * Write a snapshot of the current state and delete the WAL segments it covers.
+     * Order changes on other threads only wait while the state is captured, not
+     * while it is written and synced. Must not be called with an order lock held,
+     * e.g. from a StateChangeListener.
+     * 
+     * @throws IOException If the snapshot cannot be written
+     */
+    public void snapshot() throws IOException {
+        synchronized (snapshotLock) {
+            long[] lsn = new long[1];
+            List<SnapshotStore.State> state = new ArrayList<>(1);
+            orderService.runExclusive(() -> {
+                lsn[0] = wal.getLastLsn();
+                state.add(SnapshotStore.capture(restaurantService, orderService));
+            });
+            // The records the snapshot covers must be on disk before it is, or the log
+            // could restart below its LSN after a crash
+            wal.sync();
+            snapshots.write(lsn[0], state.get(0));
+            wal.truncateUpTo(lsn[0]);
+            recordsSinceSnapshot.set(0);
+        }
+    }
+
+    /**
+     * Block until every change logged so far is on disk.
+     * 
+     * @throws IOException If the commit fails
+     */
+    public void sync() throws IOException {
+        wal.sync();
+    }
+
+    @Override
+    public void close() throws IOException {
+        restaurantService.setStateChangeListener(null);
+        orderService.setStateChangeListener(null);
+        snapshotter.shutdown();
+        try {
+            snapshotter.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        wal.close();
+    }
+
+    @Override
+    public void onRestaurantOnboarded(Restaurant restaurant) {
+        log(ONBOARD, out -> {
+            out.writeUTF(restaurant.getRestaurantId());
+            out.writeInt(restaurant.getMaxProcessingCapacity());
+            Map<String, MenuItem> menu = restaurant.getMenu();
+            out.writeInt(menu.size());
+            for (MenuItem item : menu.values()) {
+                out.writeUTF(item.getItemId());
+                out.writeDouble(item.getPrice());
+            }
+        });
+    }
+
+    @Override
+    public void onItemPriceUpdated(String restaurantId, String itemId, double newPrice) {
+        log(UPDATE_PRICE, out -> {
+            out.writeUTF(restaurantId);
+            out.writeUTF(itemId);
+            out.writeDouble(newPrice);
+        });
+    }
+
+    @Override
+    public void onOrderPlaced(Order order) {
+        log(PLACE_ORDER, out -> SnapshotStore.writeOrder(out, order));
+    }
+
+    @Override
+    public void onOrderDispatched(Order order) {
+        log(DISPATCH_ORDER, out -> out.writeUTF(order.getOrderId()));
+    }
+
+    @Override
+    public void onOrderExpired(Order order) {
+        log(EXPIRE_ORDER, out -> out.writeUTF(order.getOrderId()));
+    }
+
+    @Override
+    public void onStrategyChanged(String strategyName) {
+        log(CHANGE_STRATEGY, out -> out.writeUTF(strategyName));
+    }
+
+    private void log(byte type, RecordWriter writer) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+            DataOutputStream out = new DataOutputStream(bytes);
+            writer.write(out);
+            out.flush();
+            wal.append(type, bytes.toByteArray());
+            
+            if (snapshotInterval > 0 && recordsSinceSnapshot.incrementAndGet() >= snapshotInterval
+                    && snapshotScheduled.compareAndSet(false, true)) {
+                snapshotter.execute(this::takeScheduledSnapshot);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to log state change", e);
+        }
+    }
+
+    private void takeScheduledSnapshot() {
+        try {
+            snapshot();
+        } catch (IOException e) {
+            // The WAL still holds every change; the next interval tries again
+            System.err.println("Error writing snapshot: " + e.getMessage());
+        } finally {
+            snapshotScheduled.set(false);
+        }
+    }
+
+    private void apply(WriteAheadLog.Record record) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(record.getPayload()))) {
+            switch (record.getType()) {
+                case ONBOARD: {
+                    String restaurantId = in.readUTF();
+                    int capacity = in.readInt();
+                    int menuSize = in.readInt();
+                    List<MenuItem> menu = new ArrayList<>(menuSize);
+                    for (int i = 0; i < menuSize; i++) {
+                        menu.add(new MenuItem(in.readUTF(), in.readDouble()));
+                    }
+                    if (!restaurantService.hasRestaurant(restaurantId)) {
+                        restaurantService.onboardRestaurant(restaurantId, menu, capacity);
+                    }
+                    break;
+                }
+                case UPDATE_PRICE:
+                    restaurantService.updateItemPrice(in.readUTF(), in.readUTF(), in.readDouble());
+                    break;
+                case PLACE_ORDER:
+                    orderService.restoreOrder(SnapshotStore.readOrder(in));
+                    break;
+                case DISPATCH_ORDER: {
+                    Order order = orderService.getOrder(in.readUTF());
+                    if (order != null && !order.isDispatched()) {
+                        orderService.dispatchOrder(order.getOrderId());
+                    }
+                    break;
+                }
+                case CHANGE_STRATEGY:
+                    orderService.setSelectionStrategy(StrategyFactory.createStrategy(in.readUTF()));
+                    break;
+                case EXPIRE_ORDER:
+                    orderService.expireOrder(in.readUTF());
+                    break;
+                default:
+                    throw new IOException("Unknown WAL record type " + record.getType() + " at LSN " + record.getLsn());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface RecordWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+}
@@ -0,0 +1,283 @@
+package com.foodorder.persistence;
+
+import com.foodorder.model.Basket;
+import com.foodorder.model.MenuItem;
+import com.foodorder.model.MenuSnapshot;
+import com.foodorder.model.Order;
+import com.foodorder.model.Restaurant;
+import com.foodorder.service.OrderService;
+import com.foodorder.service.RestaurantService;
+import com.foodorder.strategy.StrategyFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Compact binary snapshots of restaurant, menu, order and itemsServed state.
+ * 
+ * A snapshot is named after the last WAL record it covers, written to a temporary
+ * file and atomically renamed into place, so a crash never leaves a partial
+ * snapshot behind. Only the latest snapshot is kept.
+ */
+public class SnapshotStore {
+    private static final int MAGIC = 0x464F534E; // "FOSN"
+    private static final int VERSION = 1;
+    private static final String PREFIX = "snapshot-";
+    private static final String SUFFIX = ".bin";
+
+    private final Path directory;
+
+    public SnapshotStore(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        this.directory = directory;
+    }
+
+    /**
+     * Capture the state a snapshot is written from. Menus and orders are shared
+     * immutable or append-only data, so this only copies references, counters and
+     * the pending orders, and is cheap to run while changes are paused.
+     * 
+     * @param restaurantService Source of restaurant state
+     * @param orderService Source of order state
+     * @return The captured state, for write()
+     */
+    public static State capture(RestaurantService restaurantService, OrderService orderService) {
+        List<Restaurant> restaurants = restaurantService.getCapacityIndex().inOnboardingOrder();
+        List<MenuSnapshot> menus = new ArrayList<>(restaurants.size());
+        List<Map<String, Integer>> itemsServed = new ArrayList<>(restaurants.size());
+        for (Restaurant restaurant : restaurants) {
+            menus.add(restaurant.getMenuSnapshot());
+            itemsServed.add(restaurant.getItemsServed());
+        }
+        List<Order> pending = new ArrayList<>();
+        for (Order order : orderService.getAllOrders()) {
+            if (!order.isDispatched()) {
+                pending.add(order);
+            }
+        }
+        return new State(orderService, orderService.getSelectionStrategy().getName(), restaurants, menus,
+                itemsServed, orderService.getDispatchedOrderCount(), pending);
+    }
+
+    /**
+     * Write a snapshot of captured state and remove older snapshots.
+     * 
+     * @param lsn Last WAL record reflected in the state
+     * @param state State taken with capture()
+     * @throws IOException If the snapshot cannot be written
+     */
+    public void write(long lsn, State state) throws IOException {
+        Path target = snapshotPath(lsn);
+        Path temp = directory.resolve(target.getFileName() + ".tmp");
+        
+        CRC32 crc = new CRC32();
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            OutputStream file = Channels.newOutputStream(channel);
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new CheckedOutputStream(file, crc), 1 << 16));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(lsn);
+            out.writeUTF(state.strategyName);
+        
+            out.writeInt(state.restaurants.size());
+            for (int r = 0; r < state.restaurants.size(); r++) {
+                Restaurant restaurant = state.restaurants.get(r);
+                out.writeUTF(restaurant.getRestaurantId());
+                out.writeInt(restaurant.getMaxProcessingCapacity());
+                Map<String, Double> prices = state.menus.get(r).getPrices();
+                out.writeInt(prices.size());
+                for (Map.Entry<String, Double> price : prices.entrySet()) {
+                    out.writeUTF(price.getKey());
+                    out.writeDouble(price.getValue());
+                }
+                Map<String, Integer> itemsServed = state.itemsServed.get(r);
+                out.writeInt(itemsServed.size());
+                for (Map.Entry<String, Integer> served : itemsServed.entrySet()) {
+                    out.writeUTF(served.getKey());
+                    out.writeInt(served.getValue());
+                }
+            }
+        
+            // Dispatched orders in dispatch order, so the index pages the same way after
+            // recovery. The index only grows, so its first dispatchedCount entries are
+            // the ones dispatched when the state was captured.
+            List<Order> dispatched = state.orderService.getDispatchedOrders(0, state.dispatchedCount);
+            out.writeInt(dispatched.size());
+            for (Order order : dispatched) {
+                writeOrder(out, order);
+            }
+            out.writeInt(state.pending.size());
+            for (Order order : state.pending) {
+                writeOrder(out, order);
+            }
+            out.flush();
+        
+            // The checksum covers everything above and is written outside it
+            new DataOutputStream(file).writeInt((int) crc.getValue());
+            channel.force(true);
+        }
+        
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        for (Path old : listSnapshots()) {
+            if (lsnOf(old) < lsn) {
+                Files.deleteIfExists(old);
+            }
+        }
+    }
+
+    /**
+     * Load the latest intact snapshot into empty services.
+     * 
+     * @param restaurantService Service to onboard the restaurants into
+     * @param orderService Service to restore the orders into
+     * @return LSN covered by the loaded snapshot, 0 if there is none
+     * @throws IOException If a snapshot cannot be read
+     */
+    public long loadLatest(RestaurantService restaurantService, OrderService orderService) throws IOException {
+        Path latest = null;
+        for (Path path : listSnapshots()) {
+            if (latest == null || lsnOf(path) > lsnOf(latest)) {
+                latest = path;
+            }
+        }
+        if (latest == null) {
+            return 0;
+        }
+        
+        byte[] bytes = Files.readAllBytes(latest);
+        if (bytes.length < 4) {
+            throw new IOException("Truncated snapshot " + latest);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length - 4);
+        int expected = ((bytes[bytes.length - 4] & 0xFF) << 24) | ((bytes[bytes.length - 3] & 0xFF) << 16)
+                | ((bytes[bytes.length - 2] & 0xFF) << 8) | (bytes[bytes.length - 1] & 0xFF);
+        if ((int) crc.getValue() != expected) {
+            throw new IOException("Corrupt snapshot " + latest);
+        }
+        
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes, 0, bytes.length - 4))) {
+            int version = in.readInt() == MAGIC ? in.readInt() : -1;
+            if (version != VERSION) {
+                throw new IOException("Unsupported snapshot format " + latest);
+            }
+            long lsn = in.readLong();
+            orderService.setSelectionStrategy(StrategyFactory.createStrategy(in.readUTF()));
+        
+            int restaurantCount = in.readInt();
+            for (int i = 0; i < restaurantCount; i++) {
+                String restaurantId = in.readUTF();
+                int capacity = in.readInt();
+                int menuSize = in.readInt();
+                List<MenuItem> menu = new ArrayList<>(menuSize);
+                for (int j = 0; j < menuSize; j++) {
+                    menu.add(new MenuItem(in.readUTF(), in.readDouble()));
+                }
+                Restaurant restaurant = restaurantService.onboardRestaurant(restaurantId, menu, capacity);
+                int servedCount = in.readInt();
+                for (int j = 0; j < servedCount; j++) {
+                    restaurant.restoreItemsServed(in.readUTF(), in.readInt());
+                }
+            }
+        
+            int dispatchedCount = in.readInt();
+            for (int i = 0; i < dispatchedCount; i++) {
+                Order order = readOrder(in);
+                order.markAsDispatched();
+                orderService.restoreOrder(order);
+            }
+            int pendingCount = in.readInt();
+            for (int i = 0; i < pendingCount; i++) {
+                orderService.restoreOrder(readOrder(in));
+            }
+            return lsn;
+        }
+    }
+
+    static void writeOrder(DataOutputStream out, Order order) throws IOException {
+        out.writeUTF(order.getOrderId());
+        out.writeUTF(order.getRestaurantId());
+        out.writeDouble(order.getTotalAmount());
+        out.writeInt(order.getLineCount());
+        for (int line = 0; line < order.getLineCount(); line++) {
+            out.writeUTF(order.getItem(line));
+            out.writeInt(order.getQuantity(line));
+        }
+    }
+
+    /**
+     * Read an order written by writeOrder().
+     */
+    static Order readOrder(DataInputStream in) throws IOException {
+        String orderId = in.readUTF();
+        String restaurantId = in.readUTF();
+        double totalAmount = in.readDouble();
+        int lineCount = in.readInt();
+        Basket.Builder basket = Basket.builder();
+        for (int line = 0; line < lineCount; line++) {
+            basket.add(in.readUTF(), in.readInt());
+        }
+        return new Order(orderId, basket.build(), restaurantId, totalAmount);
+    }
+
+    private List<Path> listSnapshots() throws IOException {
+        List<Path> snapshots = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            for (Path path : stream) {
+                snapshots.add(path);
+            }
+        }
+        return snapshots;
+    }
+
+    private Path snapshotPath(long lsn) {
+        return directory.resolve(String.format("%s%020d%s", PREFIX, lsn, SUFFIX));
+    }
+
+    private static long lsnOf(Path snapshot) {
+        String name = snapshot.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    /**
+     * Restaurant and order state captured by capture().
+     */
+    public static final class State {
+        private final OrderService orderService;
+        private final String strategyName;
+        private final List<Restaurant> restaurants;
+        private final List<MenuSnapshot> menus;
+        private final List<Map<String, Integer>> itemsServed;
+        private final int dispatchedCount;
+        private final List<Order> pending;
+
+        private State(OrderService orderService, String strategyName, List<Restaurant> restaurants,
+                      List<MenuSnapshot> menus, List<Map<String, Integer>> itemsServed, int dispatchedCount,
+                      List<Order> pending) {
+            this.orderService = orderService;
+            this.strategyName = strategyName;
+            this.restaurants = restaurants;
+            this.menus = menus;
+            this.itemsServed = itemsServed;
+            this.dispatchedCount = dispatchedCount;
+            this.pending = pending;
+        }
+    }
+}
@@ -0,0 +1,375 @@
+package com.foodorder.persistence;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only binary log of state changes, split into segment files.
+ * 
+ * Appends go to an in-memory buffer and are assigned increasing log sequence
+ * numbers (LSNs). A background thread commits the buffer in groups: it writes
+ * everything appended since the last commit and fsyncs once, so concurrent
+ * writers share the cost of a single fsync.
+ * 
+ * Each record is framed as [length][lsn][type][payload][crc32]. On read, a torn
+ * or corrupt record ends its segment, so a crash mid-write loses only uncommitted
+ * records.
+ */
+public class WriteAheadLog implements Closeable {
+    private static final String SEGMENT_PREFIX = "wal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int HEADER_SIZE = 4 + 8 + 1;
+    private static final int TRAILER_SIZE = 4;
+
+    private final Path directory;
+    private final long commitIntervalMillis;
+    private final boolean waitForCommit;
+    private final Object commitLock;
+    private final Thread committer;
+
+    // Guarded by commitLock
+    private FileChannel segment;
+
+    // Guarded by this
+    private ByteBuffer pending;
+    private ByteBuffer spare;
+    private long nextLsn;
+    private long appendedLsn;
+    private long committedLsn;
+    private IOException commitFailure;
+    private boolean closed;
+
+    /**
+     * Open the log for appending, continuing after the highest LSN already on disk.
+     * 
+     * @param directory Directory holding the segment files
+     * @param commitIntervalMillis Time a group commit waits for more appends to join it
+     * @param waitForCommit Whether append() blocks until its record is on disk
+     * @throws IOException If the directory or segment cannot be opened
+     */
+    public WriteAheadLog(Path directory, long commitIntervalMillis, boolean waitForCommit) throws IOException {
+        Files.createDirectories(directory);
+        this.directory = directory;
+        this.commitIntervalMillis = commitIntervalMillis;
+        this.waitForCommit = waitForCommit;
+        this.commitLock = new Object();
+        this.pending = ByteBuffer.allocate(64 * 1024);
+        
+        long last = read(directory, Long.MAX_VALUE, record -> { });
+        this.nextLsn = last + 1;
+        this.appendedLsn = last;
+        this.committedLsn = last;
+        this.segment = openSegment(nextLsn);
+        
+        this.committer = new Thread(this::runCommitter, "wal-committer");
+        this.committer.setDaemon(true);
+        this.committer.start();
+    }
+
+    /**
+     * Append a record.
+     * 
+     * @param type Record type
+     * @param payload Record payload
+     * @return LSN assigned to the record
+     * @throws IOException If the log is closed or a previous commit failed
+     */
+    public long append(byte type, byte[] payload) throws IOException {
+        long lsn;
+        synchronized (this) {
+            checkOpen();
+            int size = HEADER_SIZE + payload.length + TRAILER_SIZE;
+            if (pending.remaining() < size) {
+                ByteBuffer grown = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + size));
+                pending.flip();
+                grown.put(pending);
+                pending = grown;
+            }
+            
+            lsn = nextLsn++;
+            int start = pending.position();
+            pending.putInt(size).putLong(lsn).put(type).put(payload);
+            CRC32 crc = new CRC32();
+            crc.update(pending.array(), start + 4, HEADER_SIZE - 4 + payload.length);
+            pending.putInt((int) crc.getValue());
+            appendedLsn = lsn;
+            notifyAll();
+        }
+        if (waitForCommit) {
+            awaitCommit(lsn);
+        }
+        return lsn;
+    }
+
+    /**
+     * Block until every record up to the given LSN is on disk.
+     * 
+     * @param lsn The LSN to wait for
+     * @throws IOException If the commit failed or the wait was interrupted
+     */
+    public synchronized void awaitCommit(long lsn) throws IOException {
+        while (committedLsn < lsn) {
+            checkOpen();
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted waiting for WAL commit", e);
+            }
+        }
+    }
+
+    /**
+     * Commit everything appended so far on the calling thread.
+     * 
+     * @throws IOException If the commit fails
+     */
+    public void sync() throws IOException {
+        commitBatch();
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Get the LSN of the last appended record.
+     * 
+     * @return Last appended LSN, 0 if the log is empty
+     */
+    public synchronized long getLastLsn() {
+        return appendedLsn;
+    }
+
+    /**
+     * Start a new segment and delete every segment made up only of records at or
+     * below the given LSN, which a snapshot now covers.
+     * 
+     * @param coveredLsn Highest LSN included in the latest snapshot
+     * @throws IOException If the segments cannot be rotated or deleted
+     */
+    public void truncateUpTo(long coveredLsn) throws IOException {
+        synchronized (commitLock) {
+            commitBatch();
+            long firstLsn;
+            synchronized (this) {
+                checkOpen();
+                // Records appended since the commit are still pending and go to the new
+                // segment, so it starts right after the last record of the old one
+                firstLsn = committedLsn + 1;
+            }
+            segment.close();
+            segment = openSegment(firstLsn);
+        }
+        
+        List<Long> starts = segmentStarts(directory);
+        for (int i = 0; i + 1 < starts.size(); i++) {
+            // A segment ends right before the next one starts
+            if (starts.get(i + 1) - 1 <= coveredLsn) {
+                Files.deleteIfExists(segmentPath(directory, starts.get(i)));
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+        }
+        commitBatch();
+        synchronized (this) {
+            closed = true;
+            notifyAll();
+        }
+        try {
+            committer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (commitLock) {
+            segment.close();
+        }
+    }
+
+    private void runCommitter() {
+        try {
+            while (true) {
+                synchronized (this) {
+                    while (!closed && appendedLsn == committedLsn) {
+                        wait();
+                    }
+                    if (closed) {
+                        return;
+                    }
+                }
+                // Let concurrent appends join this group before paying for the fsync
+                if (commitIntervalMillis > 0) {
+                    Thread.sleep(commitIntervalMillis);
+                }
+                commitBatch();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            synchronized (this) {
+                commitFailure = e;
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Write and fsync everything appended so far. Appends continue into a second
+     * buffer while the batch is being written.
+     */
+    private void commitBatch() throws IOException {
+        synchronized (commitLock) {
+            ByteBuffer batch;
+            long batchLsn;
+            synchronized (this) {
+                batchLsn = appendedLsn;
+                if (pending.position() == 0) {
+                    committedLsn = batchLsn;
+                    notifyAll();
+                    return;
+                }
+                batch = pending;
+                pending = spare != null ? spare : ByteBuffer.allocate(batch.capacity());
+                spare = null;
+            }
+            
+            batch.flip();
+            while (batch.hasRemaining()) {
+                segment.write(batch);
+            }
+            segment.force(false);
+            
+            synchronized (this) {
+                committedLsn = batchLsn;
+                batch.clear();
+                spare = batch;
+                notifyAll();
+            }
+        }
+    }
+
+    private void checkOpen() throws IOException {
+        if (commitFailure != null) {
+            throw new IOException("WAL commit failed", commitFailure);
+        }
+        if (closed) {
+            throw new IOException("WAL is closed");
+        }
+    }
+
+    private FileChannel openSegment(long firstLsn) throws IOException {
+        // Anything already in a segment at this LSN is a torn tail and is discarded
+        return FileChannel.open(segmentPath(directory, firstLsn),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    /**
+     * Read every intact record with an LSN above the given one, in LSN order.
+     * 
+     * @param directory Directory holding the segment files
+     * @param afterLsn Only records with a greater LSN are passed on
+     * @param consumer Receiver of the records
+     * @return LSN of the last intact record, 0 if the log is empty
+     * @throws IOException If a segment cannot be read
+     */
+    public static long read(Path directory, long afterLsn, Consumer<Record> consumer) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return 0;
+        }
+        long lastLsn = -1;
+        for (long start : segmentStarts(directory)) {
+            if (lastLsn >= 0 && start != lastLsn + 1) {
+                break; // A gap before this segment: the log ends here
+            }
+            byte[] bytes = Files.readAllBytes(segmentPath(directory, start));
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            while (buffer.remaining() >= HEADER_SIZE + TRAILER_SIZE) {
+                int recordStart = buffer.position();
+                int size = buffer.getInt();
+                if (size < HEADER_SIZE + TRAILER_SIZE || size - 4 > buffer.remaining()) {
+                    break; // Torn write at the tail of the segment
+                }
+                long lsn = buffer.getLong();
+                byte type = buffer.get();
+                byte[] payload = new byte[size - HEADER_SIZE - TRAILER_SIZE];
+                buffer.get(payload);
+                int checksum = buffer.getInt();
+                
+                CRC32 crc = new CRC32();
+                crc.update(bytes, recordStart + 4, size - 4 - TRAILER_SIZE);
+                if ((int) crc.getValue() != checksum || (lastLsn >= 0 && lsn != lastLsn + 1)) {
+                    break; // Corrupt or out-of-sequence record: the rest of the segment is not trusted
+                }
+                lastLsn = lsn;
+                if (lsn > afterLsn) {
+                    consumer.accept(new Record(lsn, type, payload));
+                }
+            }
+            if (lastLsn < 0) {
+                lastLsn = start - 1;
+            }
+        }
+        return Math.max(lastLsn, 0);
+    }
+
+    private static List<Long> segmentStarts(Path directory) throws IOException {
+        List<Long> starts = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path path : stream) {
+                String name = path.getFileName().toString();
+                starts.add(Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())));
+            }
+        }
+        Collections.sort(starts);
+        return starts;
+    }
+
+    private static Path segmentPath(Path directory, long firstLsn) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstLsn, SEGMENT_SUFFIX));
+    }
+
+    /**
+     * A record read back from the log.
+     */
+    public static final class Record {
+        private final long lsn;
+        private final byte type;
+        private final byte[] payload;
+
+        Record(long lsn, byte type, byte[] payload) {
+            this.lsn = lsn;
+            this.type = type;
+            this.payload = payload;
+        }
+
+        public long getLsn() {
+            return lsn;
+        }
+
+        public byte getType() {
+            return type;
+        }
+
+        public byte[] getPayload() {
+            return payload;
+        }
+    }
+}
@@ -0,0 +1,431 @@
+package com.foodorder.replay;
+
+import com.foodorder.command.Command;
+import com.foodorder.command.CommandFactory;
+import com.foodorder.command.CommandPool;
+import com.foodorder.command.CommandProcessor;
+import com.foodorder.command.ResultSink;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Bulk replay of a command file.
+ * 
+ * The file is memory-mapped one window at a time. Each window is cut into line
+ * ranges that are parsed in parallel; every range is sorted by timestamp and the
+ * ranges are merged into the command processor in timestamp order. Results are
+ * written through a buffered writer rather than printed one by one.
+ * 
+ * Commands are reordered within a window only, so a file that is not globally
+ * sorted executes in timestamp order per window.
+ * 
+ * replayInFileOrder() is the low-allocation alternative for files that are
+ * already in timestamp order, such as command logs: lines are parsed one at a
+ * time into pooled commands and executed in file order, and results are
+ * formatted into one reused buffer.
+ */
+public class CommandFileReplayer {
+    public static final int DEFAULT_WINDOW_SIZE = 64 << 20;
+    private static final String RESULT_SEPARATOR = "-------------------";
+
+    private final CommandFactory commandFactory;
+    private final CommandProcessor commandProcessor;
+    private final int parallelism;
+    private final int windowSize;
+
+    public CommandFileReplayer(CommandFactory commandFactory, CommandProcessor commandProcessor) {
+        this(commandFactory, commandProcessor, Runtime.getRuntime().availableProcessors(), DEFAULT_WINDOW_SIZE);
+    }
+
+    public CommandFileReplayer(CommandFactory commandFactory, CommandProcessor commandProcessor,
+                               int parallelism, int windowSize) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+        }
+        if (windowSize <= 0) {
+            throw new IllegalArgumentException("Window size must be positive: " + windowSize);
+        }
+        this.commandFactory = commandFactory;
+        this.commandProcessor = commandProcessor;
+        this.parallelism = parallelism;
+        this.windowSize = windowSize;
+    }
+
+    /**
+     * Replay every command in a file.
+     * 
+     * @param commandFile File with one command per line
+     * @param output Writer receiving the execution results; flushed but not closed
+     * @return Summary of the replay
+     * @throws IOException If the file cannot be read or the output written
+     */
+    public Summary replay(Path commandFile, Writer output) throws IOException {
+        long startNanos = System.nanoTime();
+        long executed = 0;
+        long errors = 0;
+        long bytes;
+        
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "replay-parser");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try (FileChannel channel = FileChannel.open(commandFile, StandardOpenOption.READ)) {
+            bytes = channel.size();
+            ResultSink sink = (command, result) -> writeResult(output, result);
+            
+            long windowStart = 0;
+            while (windowStart < bytes) {
+                long length = Math.min(windowSize, bytes - windowStart);
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, length);
+                
+                // Only whole lines belong to this window; the remainder starts the next one
+                int usable = (int) length;
+                if (windowStart + length < bytes) {
+                    usable = lastLineEnd(window, (int) length);
+                    if (usable == 0) {
+                        throw new IOException("Line at byte " + windowStart + " is longer than the replay window");
+                    }
+                }
+                
+                List<ParsedRange> ranges = parseWindow(executor, window, usable, windowStart);
+                for (ParsedRange range : ranges) {
+                    for (String error : range.errors) {
+                        writeResult(output, error);
+                        errors++;
+                    }
+                }
+                executed += commandProcessor.executeInOrder(new MergingIterator(ranges), sink);
+                windowStart += usable;
+            }
+            output.flush();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            executor.shutdownNow();
+        }
+        
+        return new Summary(executed, errors, bytes, System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Replay every command in a file in file order, without reordering by
+     * timestamp. Frequent command types are parsed into pooled commands, and
+     * results go through a reused buffer, so steady-state replay allocates little
+     * beyond the orders themselves. Parse errors are reported in line.
+     * 
+     * @param commandFile File with one command per line, in timestamp order
+     * @param output Writer receiving the execution results; flushed but not closed
+     * @return Summary of the replay
+     * @throws IOException If the file cannot be read or the output written
+     */
+    public Summary replayInFileOrder(Path commandFile, Writer output) throws IOException {
+        long startNanos = System.nanoTime();
+        long executed = 0;
+        long errors = 0;
+        long bytes;
+        
+        CommandPool pool = commandFactory.newCommandPool();
+        ByteCharSequence asciiLine = new ByteCharSequence(null, 0, 0);
+        StringBuilder result = new StringBuilder(256);
+        char[] chars = new char[256];
+        try (FileChannel channel = FileChannel.open(commandFile, StandardOpenOption.READ)) {
+            bytes = channel.size();
+            long windowStart = 0;
+            while (windowStart < bytes) {
+                long length = Math.min(windowSize, bytes - windowStart);
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, length);
+                int usable = (int) length;
+                if (windowStart + length < bytes) {
+                    usable = lastLineEnd(window, (int) length);
+                    if (usable == 0) {
+                        throw new IOException("Line at byte " + windowStart + " is longer than the replay window");
+                    }
+                }
+                
+                int lineStart = 0;
+                while (lineStart < usable) {
+                    int lineEnd = lineStart;
+                    while (lineEnd < usable && window.get(lineEnd) != '\n') {
+                        lineEnd++;
+                    }
+                    int contentEnd = lineEnd;
+                    if (contentEnd > lineStart && window.get(contentEnd - 1) == '\r') {
+                        contentEnd--;
+                    }
+                    
+                    if (contentEnd > lineStart) {
+                        CharSequence line = isAscii(window, lineStart, contentEnd)
+                                ? reset(asciiLine, window, lineStart, contentEnd)
+                                : line(window, lineStart, contentEnd);
+                        Command command = null;
+                        try {
+                            command = pool.parse(line);
+                        } catch (Exception e) {
+                            writeResult(output, "Error processing command at byte " + (windowStart + lineStart) + ": " + e.getMessage());
+                            errors++;
+                        }
+                        if (command != null) {
+                            result.setLength(0);
+                            commandProcessor.executeNow(command, result);
+                            chars = writeResult(output, result, chars);
+                            executed++;
+                        }
+                    }
+                    lineStart = lineEnd + 1;
+                }
+                windowStart += usable;
+            }
+            output.flush();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        
+        return new Summary(executed, errors, bytes, System.nanoTime() - startNanos);
+    }
+
+    private static boolean isAscii(ByteBuffer window, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (window.get(i) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static CharSequence reset(ByteCharSequence view, ByteBuffer window, int start, int end) {
+        view.reset(window, start, end - start);
+        return view;
+    }
+
+    private List<ParsedRange> parseWindow(ExecutorService executor, ByteBuffer window, int length,
+                                          long windowStart) throws IOException {
+        List<Future<ParsedRange>> futures = new ArrayList<>(parallelism);
+        int rangeStart = 0;
+        for (int i = 0; i < parallelism && rangeStart < length; i++) {
+            int target = rangeStart + (length - rangeStart) / (parallelism - i);
+            int rangeEnd = i == parallelism - 1 ? length : nextLineStart(window, target, length);
+            final int start = rangeStart;
+            final int end = rangeEnd;
+            futures.add(executor.submit(() -> parseRange(window, start, end, windowStart)));
+            rangeStart = rangeEnd;
+        }
+        
+        List<ParsedRange> ranges = new ArrayList<>(futures.size());
+        try {
+            for (Future<ParsedRange> future : futures) {
+                ranges.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while parsing command file", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to parse command file", e.getCause());
+        }
+        return ranges;
+    }
+
+    private ParsedRange parseRange(ByteBuffer window, int start, int end, long windowStart) {
+        ParsedRange range = new ParsedRange();
+        int lineStart = start;
+        while (lineStart < end) {
+            int lineEnd = lineStart;
+            while (lineEnd < end && window.get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+            int contentEnd = lineEnd;
+            if (contentEnd > lineStart && window.get(contentEnd - 1) == '\r') {
+                contentEnd--;
+            }
+            
+            if (contentEnd > lineStart) {
+                CharSequence line = line(window, lineStart, contentEnd);
+                try {
+                    range.commands.add(commandFactory.createCommand(line));
+                } catch (Exception e) {
+                    range.errors.add("Error processing command at byte " + (windowStart + lineStart) + ": " + e.getMessage());
+                }
+            }
+            lineStart = lineEnd + 1;
+        }
+        
+        // Stable sort keeps file order between equal timestamps
+        range.commands.sort(Comparator.comparingLong(Command::getTimestamp));
+        return range;
+    }
+
+    private CharSequence line(ByteBuffer window, int start, int end) {
+        if (!isAscii(window, start, end)) {
+            // Non-ASCII content: decode this line properly
+            byte[] bytes = new byte[end - start];
+            for (int j = 0; j < bytes.length; j++) {
+                bytes[j] = window.get(start + j);
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+        return new ByteCharSequence(window, start, end - start);
+    }
+
+    private static int lastLineEnd(ByteBuffer window, int length) {
+        for (int i = length - 1; i >= 0; i--) {
+            if (window.get(i) == '\n') {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+
+    private static int nextLineStart(ByteBuffer window, int from, int length) {
+        for (int i = from; i < length; i++) {
+            if (window.get(i) == '\n') {
+                return i + 1;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Write a result held in a builder through a reused char buffer, so no string
+     * is created for it.
+     * 
+     * @return The char buffer, grown if the result did not fit
+     */
+    private static char[] writeResult(Writer output, StringBuilder result, char[] chars) throws IOException {
+        if (chars.length < result.length()) {
+            chars = new char[Math.max(result.length(), chars.length * 2)];
+        }
+        result.getChars(0, result.length(), chars, 0);
+        output.write(chars, 0, result.length());
+        output.write('\n');
+        output.write(RESULT_SEPARATOR);
+        output.write('\n');
+        return chars;
+    }
+
+    private static void writeResult(Writer output, String result) {
+        try {
+            output.write(result);
+            output.write('\n');
+            output.write(RESULT_SEPARATOR);
+            output.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static final class ParsedRange {
+        private final List<Command> commands = new ArrayList<>();
+        private final List<String> errors = new ArrayList<>();
+    }
+
+    /**
+     * K-way merge of sorted ranges by timestamp; ties go to the earlier range,
+     * preserving file order.
+     */
+    private static final class MergingIterator implements Iterator<Command> {
+        private final PriorityQueue<Cursor> cursors;
+
+        private MergingIterator(List<ParsedRange> ranges) {
+            this.cursors = new PriorityQueue<>(Math.max(1, ranges.size()), Comparator
+                    .comparingLong(Cursor::timestamp)
+                    .thenComparingInt(cursor -> cursor.rangeIndex));
+            for (int i = 0; i < ranges.size(); i++) {
+                if (!ranges.get(i).commands.isEmpty()) {
+                    cursors.add(new Cursor(ranges.get(i).commands, i));
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !cursors.isEmpty();
+        }
+
+        @Override
+        public Command next() {
+            Cursor cursor = cursors.poll();
+            if (cursor == null) {
+                throw new NoSuchElementException();
+            }
+            Command command = cursor.commands.get(cursor.position);
+            // Release the reference so executed commands can be collected
+            cursor.commands.set(cursor.position++, null);
+            if (cursor.position < cursor.commands.size()) {
+                cursors.add(cursor);
+            }
+            return command;
+        }
+    }
+
+    private static final class Cursor {
+        private final List<Command> commands;
+        private final int rangeIndex;
+        private int position;
+
+        private Cursor(List<Command> commands, int rangeIndex) {
+            this.commands = commands;
+            this.rangeIndex = rangeIndex;
+        }
+
+        private long timestamp() {
+            return commands.get(position).getTimestamp();
+        }
+    }
+
+    /**
+     * Outcome of a replay.
+     */
+    public static final class Summary {
+        private final long commandsExecuted;
+        private final long parseErrors;
+        private final long bytesRead;
+        private final long elapsedNanos;
+
+        private Summary(long commandsExecuted, long parseErrors, long bytesRead, long elapsedNanos) {
+            this.commandsExecuted = commandsExecuted;
+            this.parseErrors = parseErrors;
+            this.bytesRead = bytesRead;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public long getCommandsExecuted() {
+            return commandsExecuted;
+        }
+
+        public long getParseErrors() {
+            return parseErrors;
+        }
+
+        public long getBytesRead() {
+            return bytesRead;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            double seconds = elapsedNanos / 1e9;
+            return "Replayed " + commandsExecuted + " commands (" + parseErrors + " parse errors, "
+                   + bytesRead + " bytes) in " + String.format("%.3f", seconds) + "s";
+        }
+    }
+}
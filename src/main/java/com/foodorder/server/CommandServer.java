@@ -0,0 +1,204 @@
+package com.foodorder.server;
+
+import com.foodorder.command.Command;
+import com.foodorder.command.CommandFactory;
+import com.foodorder.metrics.Metrics;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TCP front-end for the command protocol.
+ * 
+ * Clients send the same comma-separated command lines CommandFactory parses, one
+ * per line. Each command is executed as soon as it arrives, not queued by
+ * timestamp. Its result is written back followed by a line holding a single ".";
+ * result lines starting with "." get an extra leading "." (as in SMTP), which
+ * clients strip.
+ * 
+ * Every connection is served by its own thread: a virtual thread when the JVM
+ * supports them (Java 21+), otherwise a pooled platform thread. Commands from one
+ * connection run in the order they were sent, so clients can pipeline commands
+ * without waiting for replies; replies are flushed once the pipelined input is drained.
+ * Commands from different connections run concurrently.
+ */
+public class CommandServer implements Closeable {
+    public static final int DEFAULT_PORT = 7070;
+
+    private final CommandFactory commandFactory;
+    private final ServerSocket serverSocket;
+    private final ExecutorService connectionExecutor;
+    private final Set<Socket> connections;
+    private final boolean virtualThreads;
+    private final Thread acceptor;
+    private volatile boolean closed;
+
+    /**
+     * Start listening on the given port.
+     * 
+     * @param commandFactory Factory parsing the received command lines
+     * @param port Port to listen on, 0 for any free port
+     * @throws IOException If the port cannot be bound
+     */
+    public CommandServer(CommandFactory commandFactory, int port) throws IOException {
+        this.commandFactory = commandFactory;
+        this.serverSocket = new ServerSocket();
+        this.serverSocket.setReuseAddress(true);
+        this.serverSocket.bind(new InetSocketAddress(port));
+        ExecutorService virtualThreadExecutor = virtualThreadExecutor();
+        this.virtualThreads = virtualThreadExecutor != null;
+        this.connectionExecutor = virtualThreads ? virtualThreadExecutor : newPlatformThreadExecutor();
+        this.connections = ConcurrentHashMap.newKeySet();
+        this.acceptor = new Thread(this::acceptConnections, "command-server-acceptor");
+        this.acceptor.start();
+    }
+
+    /**
+     * Get the port the server listens on.
+     * 
+     * @return The local port
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Check whether connections are served by virtual threads.
+     * 
+     * @return True on a JVM with virtual threads
+     */
+    public boolean usesVirtualThreads() {
+        return virtualThreads;
+    }
+
+    /**
+     * Block until the server is closed.
+     * 
+     * @throws InterruptedException If interrupted while waiting
+     */
+    public void awaitTermination() throws InterruptedException {
+        acceptor.join();
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        serverSocket.close();
+        for (Socket connection : connections) {
+            connection.close();
+        }
+        connectionExecutor.shutdown();
+        try {
+            connectionExecutor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void acceptConnections() {
+        while (!closed) {
+            try {
+                Socket connection = serverSocket.accept();
+                connection.setTcpNoDelay(true);
+                connections.add(connection);
+                connectionExecutor.execute(() -> serve(connection));
+            } catch (IOException e) {
+                if (!closed) {
+                    System.err.println("Error accepting connection: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void serve(Socket connection) {
+        try (Socket socket = connection;
+             BufferedReader reader = new BufferedReader(
+                     new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8), 1 << 16);
+             Writer writer = new BufferedWriter(
+                     new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8), 1 << 16)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                writeReply(writer, execute(line));
+                
+                // Replies to pipelined commands are flushed together
+                if (!reader.ready()) {
+                    writer.flush();
+                }
+            }
+        } catch (SocketException e) {
+            // Connection reset or closed by close()
+        } catch (IOException e) {
+            System.err.println("Error serving connection: " + e.getMessage());
+        } finally {
+            connections.remove(connection);
+        }
+    }
+
+    private String execute(String line) {
+        Command command;
+        try {
+            command = commandFactory.createCommand(line);
+        } catch (Exception e) {
+            return "Error processing command: " + e.getMessage();
+        }
+        long start = Metrics.startTimer();
+        String result = command.execute();
+        Metrics.recordCommand(command, start);
+        return result;
+    }
+
+    private static void writeReply(Writer writer, String result) throws IOException {
+        int start = 0;
+        while (start <= result.length()) {
+            int end = result.indexOf('\n', start);
+            if (end < 0) {
+                end = result.length();
+            }
+            if (end > start && result.charAt(start) == '.') {
+                writer.write('.');
+            }
+            writer.write(result, start, end - start);
+            writer.write('\n');
+            start = end + 1;
+        }
+        writer.write(".\n");
+    }
+
+    private static ExecutorService newPlatformThreadExecutor() {
+        return Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "command-server-connection");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Executors.newVirtualThreadPerTaskExecutor() looked up reflectively, so the
+     * server still builds and runs on JVMs without virtual threads.
+     */
+    private static ExecutorService virtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+}
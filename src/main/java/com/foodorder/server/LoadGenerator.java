@@ -0,0 +1,257 @@
+package com.foodorder.server;
+
+import com.foodorder.metrics.HistogramSnapshot;
+import com.foodorder.metrics.LatencyHistogram;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Load-generator client for CommandServer.
+ * 
+ * Onboards a fleet of restaurants, then opens the given number of connections,
+ * each sending a stream of place-order and dispatch-order commands with up to
+ * pipelineDepth commands in flight. Reports throughput and the latency from
+ * sending a command to reading its full reply.
+ * 
+ * Usage: LoadGenerator [host [port [connections [commandsPerConnection [pipelineDepth [restaurants]]]]]]
+ */
+public class LoadGenerator {
+    private static final int MENU_SIZE = 20;
+
+    private final String host;
+    private final int port;
+    private final LatencyHistogram latencies;
+
+    public LoadGenerator(String host, int port) {
+        this.host = host;
+        this.port = port;
+        this.latencies = new LatencyHistogram();
+    }
+
+    public static void main(String[] args) throws Exception {
+        String host = args.length > 0 ? args[0] : "localhost";
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : CommandServer.DEFAULT_PORT;
+        int connections = args.length > 2 ? Integer.parseInt(args[2]) : 16;
+        int commandsPerConnection = args.length > 3 ? Integer.parseInt(args[3]) : 50_000;
+        int pipelineDepth = args.length > 4 ? Integer.parseInt(args[4]) : 32;
+        int restaurants = args.length > 5 ? Integer.parseInt(args[5]) : 1_000;
+        
+        LoadGenerator generator = new LoadGenerator(host, port);
+        generator.onboard(restaurants);
+        System.out.println(generator.run(connections, commandsPerConnection, pipelineDepth));
+    }
+
+    /**
+     * Onboard restaurants with random menus over a single connection.
+     * 
+     * @param restaurants Number of restaurants to onboard
+     * @throws IOException If the server cannot be reached
+     */
+    public void onboard(int restaurants) throws IOException {
+        Random random = new Random(42);
+        List<String> commands = new ArrayList<>(restaurants);
+        for (int r = 0; r < restaurants; r++) {
+            StringBuilder menu = new StringBuilder();
+            for (int i = 0; i < MENU_SIZE; i++) {
+                if (i > 0) {
+                    menu.append(',');
+                }
+                menu.append("(item").append(random.nextInt(MENU_SIZE * 2)).append(", ")
+                    .append(10 + random.nextInt(90)).append(')');
+            }
+            commands.add(r + ", onboard-restaurant, load-restaurant" + r + ", [" + menu + "], 1000000");
+        }
+        try (Connection connection = new Connection(host, port)) {
+            for (String command : commands) {
+                connection.send(command);
+            }
+            connection.flush();
+            for (int i = 0; i < commands.size(); i++) {
+                connection.readReply();
+            }
+        }
+    }
+
+    /**
+     * Drive the server from several connections at once and wait for every reply.
+     * 
+     * @param connections Number of concurrent connections
+     * @param commandsPerConnection Commands sent on each connection
+     * @param pipelineDepth Maximum commands in flight per connection
+     * @return Throughput and latency report
+     * @throws Exception If a connection fails
+     */
+    public Report run(int connections, int commandsPerConnection, int pipelineDepth) throws Exception {
+        latencies.reset();
+        List<Thread> threads = new ArrayList<>(connections);
+        List<Exception> failures = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int c = 0; c < connections; c++) {
+            final int connectionIndex = c;
+            Thread thread = new Thread(() -> {
+                try {
+                    drive(connectionIndex, commandsPerConnection, pipelineDepth);
+                } catch (Exception e) {
+                    synchronized (failures) {
+                        failures.add(e);
+                    }
+                }
+            }, "load-generator-" + c);
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long elapsed = System.nanoTime() - start;
+        if (!failures.isEmpty()) {
+            throw failures.get(0);
+        }
+        return new Report((long) connections * commandsPerConnection, elapsed, latencies.snapshot());
+    }
+
+    private void drive(int connectionIndex, int commands, int pipelineDepth) throws Exception {
+        Random random = new Random(connectionIndex);
+        AtomicLongArray sentAt = new AtomicLongArray(commands);
+        Semaphore inFlight = new Semaphore(pipelineDepth);
+        Thread sender = Thread.currentThread();
+        AtomicReference<Exception> readerFailure = new AtomicReference<>();
+        
+        try (Connection connection = new Connection(host, port)) {
+            Thread reader = new Thread(() -> {
+                try {
+                    for (int i = 0; i < commands; i++) {
+                        connection.readReply();
+                        latencies.record(System.nanoTime() - sentAt.get(i));
+                        inFlight.release();
+                    }
+                } catch (Exception e) {
+                    // No more slots will be released: wake the sender if it is waiting for one
+                    readerFailure.set(e);
+                    sender.interrupt();
+                }
+            }, "load-generator-reader-" + connectionIndex);
+            reader.start();
+            
+            try {
+                String prefix = "c" + connectionIndex + "-order";
+                int placed = 0;
+                for (int i = 0; i < commands; i++) {
+                    if (!inFlight.tryAcquire()) {
+                        // Window is full: push out what is buffered before waiting for replies
+                        connection.flush();
+                        inFlight.acquire();
+                    }
+                    String command;
+                    if (placed > 0 && i % 2 == 1) {
+                        command = i + ", dispatch-order, " + prefix + (placed - 1);
+                    } else {
+                        command = i + ", place-order, " + prefix + placed++ + ", item" + random.nextInt(MENU_SIZE * 2)
+                                + ", item" + random.nextInt(MENU_SIZE * 2);
+                    }
+                    sentAt.set(i, System.nanoTime());
+                    connection.send(command);
+                }
+                connection.flush();
+                reader.join();
+            } catch (InterruptedException | IOException e) {
+                if (readerFailure.get() == null) {
+                    throw e;
+                }
+                // Caused by the reader failing; report that instead
+            }
+            
+            Exception failure = readerFailure.get();
+            if (failure != null) {
+                Thread.interrupted(); // Clear the reader's wake-up
+                throw new IOException("Connection failed with replies outstanding", failure);
+            }
+        }
+    }
+
+    /**
+     * Throughput and latency of a load run.
+     */
+    public static final class Report {
+        private final long commands;
+        private final long elapsedNanos;
+        private final HistogramSnapshot latencies;
+
+        Report(long commands, long elapsedNanos, HistogramSnapshot latencies) {
+            this.commands = commands;
+            this.elapsedNanos = elapsedNanos;
+            this.latencies = latencies;
+        }
+
+        public double getThroughput() {
+            return commands / (elapsedNanos / 1e9);
+        }
+
+        public HistogramSnapshot getLatencies() {
+            return latencies;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d commands in %.2fs: %.0f commands/s, latency p50=%dus p99=%dus max=%dus",
+                    commands, elapsedNanos / 1e9, getThroughput(),
+                    TimeUnit.NANOSECONDS.toMicros(latencies.getP50()),
+                    TimeUnit.NANOSECONDS.toMicros(latencies.getP99()),
+                    TimeUnit.NANOSECONDS.toMicros(latencies.getMax()));
+        }
+    }
+
+    private static final class Connection implements AutoCloseable {
+        private final Socket socket;
+        private final BufferedReader reader;
+        private final Writer writer;
+
+        Connection(String host, int port) throws IOException {
+            this.socket = new Socket(host, port);
+            this.socket.setTcpNoDelay(true);
+            this.reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8), 1 << 16);
+            this.writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8), 1 << 16);
+        }
+
+        void send(String command) throws IOException {
+            writer.write(command);
+            writer.write('\n');
+        }
+
+        void flush() throws IOException {
+            writer.flush();
+        }
+
+        /**
+         * Read one reply, up to and including its terminating "." line.
+         */
+        void readReply() throws IOException {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.equals(".")) {
+                    return;
+                }
+            }
+            throw new IOException("Connection closed mid-reply");
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.foodorder.service;
+
+import com.foodorder.model.Basket;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Canonical form of an order's basket: its distinct item IDs sorted, each with
+ * its quantity. Two orders with the same items and quantities in any order share
+ * the same key.
+ */
+public final class BasketKey {
+    private final String[] items;
+    private final int[] quantities;
+    private final int hash;
+
+    private BasketKey(String[] items, int[] quantities) {
+        this.items = items;
+        this.quantities = quantities;
+        this.hash = 31 * Arrays.hashCode(items) + Arrays.hashCode(quantities);
+    }
+
+    /**
+     * Build the canonical key for a list of item IDs.
+     * 
+     * @param items List of item IDs in the order, repeated items counting as quantities
+     * @return The basket key
+     */
+    public static BasketKey of(List<String> items) {
+        return of(Basket.of(items));
+    }
+
+    /**
+     * Build the canonical key for a basket.
+     * 
+     * @param basket The basket
+     * @return The basket key
+     */
+    public static BasketKey of(Basket basket) {
+        Integer[] order = new Integer[basket.size()];
+        for (int line = 0; line < order.length; line++) {
+            order[line] = line;
+        }
+        Arrays.sort(order, (a, b) -> basket.getItemId(a).compareTo(basket.getItemId(b)));
+        
+        String[] items = new String[order.length];
+        int[] quantities = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            items[i] = basket.getItemId(order[i]);
+            quantities[i] = basket.getQuantity(order[i]);
+        }
+        return new BasketKey(items, quantities);
+    }
+
+    /**
+     * Get the number of distinct items.
+     */
+    int size() {
+        return items.length;
+    }
+
+    String itemAt(int index) {
+        return items[index];
+    }
+
+    int quantityAt(int index) {
+        return quantities[index];
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof BasketKey)) {
+            return false;
+        }
+        BasketKey other = (BasketKey) o;
+        return hash == other.hash && Arrays.equals(items, other.items) && Arrays.equals(quantities, other.quantities);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder("[");
+        for (int i = 0; i < items.length; i++) {
+            if (i > 0) {
+                result.append(", ");
+            }
+            result.append(items[i]);
+            if (quantities[i] != 1) {
+                result.append('*').append(quantities[i]);
+            }
+        }
+        return result.append(']').toString();
+    }
+}
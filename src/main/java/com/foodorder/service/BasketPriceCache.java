@@ -0,0 +1,216 @@
+package com.foodorder.service;
+
+import com.foodorder.model.MenuSnapshot;
+import com.foodorder.model.Restaurant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded cache of basket prices per restaurant.
+ * 
+ * Each entry remembers the restaurant's price version it was computed at, so a
+ * price update on a restaurant invalidates exactly that restaurant's entries.
+ * The cache is split into segments, each evicting its least recently used entry
+ * once full, so concurrent lookups on different segments do not contend.
+ */
+public class BasketPriceCache {
+    public static final int DEFAULT_MAXIMUM_SIZE = 10_000;
+    private static final int SEGMENTS = 16;
+
+    private final Segment[] segments;
+    private final int maximumSize;
+    private final AtomicLong hitCount;
+    private final AtomicLong missCount;
+
+    public BasketPriceCache() {
+        this(DEFAULT_MAXIMUM_SIZE);
+    }
+
+    public BasketPriceCache(int maximumSize) {
+        if (maximumSize < 0) {
+            throw new IllegalArgumentException("Maximum size must not be negative: " + maximumSize);
+        }
+        this.maximumSize = maximumSize;
+        this.segments = new Segment[SEGMENTS];
+        int segmentSize = (maximumSize + SEGMENTS - 1) / SEGMENTS;
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(segmentSize);
+        }
+        this.hitCount = new AtomicLong();
+        this.missCount = new AtomicLong();
+    }
+
+    /**
+     * Get the total price of a basket at a restaurant, computing and caching it on a miss.
+     * The restaurant must serve every item of the basket.
+     * 
+     * @param restaurant The restaurant
+     * @param basket Canonical basket key
+     * @return Total price of the basket at the restaurant
+     */
+    public double getTotalPrice(Restaurant restaurant, BasketKey basket) {
+        return getTotalPrice(restaurant, restaurant.getMenuSnapshot(), basket);
+    }
+
+    /**
+     * Get the total price of a basket at a given menu version of a restaurant,
+     * computing and caching it on a miss.
+     * 
+     * @param restaurant The restaurant
+     * @param menu A snapshot of the restaurant's menu, serving every item of the basket
+     * @param basket Canonical basket key
+     * @return Total price of the basket at the snapshot's prices
+     */
+    public double getTotalPrice(Restaurant restaurant, MenuSnapshot menu, BasketKey basket) {
+        if (maximumSize == 0) {
+            missCount.incrementAndGet();
+            return computeTotalPrice(menu, basket);
+        }
+        
+        Key key = new Key(restaurant.getRestaurantId(), basket);
+        Segment segment = segments[(key.hashCode() & 0x7fffffff) % SEGMENTS];
+        long version = menu.getVersion();
+        
+        CachedPrice entry;
+        synchronized (segment) {
+            entry = segment.get(key);
+        }
+        if (entry != null && entry.priceVersion == version) {
+            hitCount.incrementAndGet();
+            return entry.totalPrice;
+        }
+        
+        // Priced from the snapshot the version was read from, so the cached total
+        // never mixes prices of two versions
+        missCount.incrementAndGet();
+        double totalPrice = computeTotalPrice(menu, basket);
+        synchronized (segment) {
+            // A caller pricing an older snapshot must not evict the newer version's total
+            CachedPrice current = segment.get(key);
+            if (current == null || current.priceVersion < version) {
+                segment.put(key, new CachedPrice(version, totalPrice));
+            }
+        }
+        return totalPrice;
+    }
+
+    private double computeTotalPrice(MenuSnapshot menu, BasketKey basket) {
+        double total = 0.0;
+        for (int i = 0; i < basket.size(); i++) {
+            total += menu.getPrice(basket.itemAt(i)) * basket.quantityAt(i);
+        }
+        return total;
+    }
+
+    /**
+     * Get the number of lookups answered from the cache.
+     * 
+     * @return Hit count
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * Get the number of lookups that had to compute the price.
+     * 
+     * @return Miss count
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * Get the fraction of lookups answered from the cache.
+     * 
+     * @return Hit rate between 0 and 1
+     */
+    public double getHitRate() {
+        long hits = hitCount.get();
+        long total = hits + missCount.get();
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    /**
+     * Get the number of cached entries.
+     * 
+     * @return Current size
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    @Override
+    public String toString() {
+        return "BasketPriceCache{" +
+               "size=" + size() +
+               ", maximumSize=" + maximumSize +
+               ", hits=" + hitCount.get() +
+               ", misses=" + missCount.get() +
+               '}';
+    }
+
+    private static final class Segment extends LinkedHashMap<Key, CachedPrice> {
+        private static final long serialVersionUID = 1L;
+
+        private final int capacity;
+
+        private Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, CachedPrice> eldest) {
+            return size() > capacity;
+        }
+    }
+
+    private static final class Key {
+        private final String restaurantId;
+        private final BasketKey basket;
+
+        private Key(String restaurantId, BasketKey basket) {
+            this.restaurantId = restaurantId;
+            this.basket = basket;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return restaurantId.equals(other.restaurantId) && basket.equals(other.basket);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * restaurantId.hashCode() + basket.hashCode();
+        }
+    }
+
+    private static final class CachedPrice {
+        private final long priceVersion;
+        private final double totalPrice;
+
+        private CachedPrice(long priceVersion, double totalPrice) {
+            this.priceVersion = priceVersion;
+            this.totalPrice = totalPrice;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.foodorder.service;
+
+import java.util.Arrays;
+
+/**
+ * Capacity-aware assignment of a batch of orders to restaurants.
+ * 
+ * Orders with the same basket form a group. The assignment is solved as a
+ * min-cost max-flow problem: source -> group (capacity = orders in the group),
+ * group -> restaurant (one edge per restaurant able to serve the basket, cost =
+ * basket price in cents) and restaurant -> sink (capacity = remaining capacity).
+ * Successive shortest paths give the largest number of orders fulfilled and,
+ * among those assignments, the lowest total price.
+ */
+final class BatchAssignment {
+    private final int groupCount;
+    private final int source;
+    private final int sink;
+    private final int[] head;
+    private final int[] tail;
+
+    // Edge arrays; edge e and e ^ 1 are a forward/residual pair
+    private int[] to;
+    private int[] next;
+    private int[] capacity;
+    private long[] cost;
+    private int edgeCount;
+    private int[] optionEdges;
+    private int optionCount;
+
+    BatchAssignment(int groupCount, int restaurantCount) {
+        this.groupCount = groupCount;
+        this.source = 0;
+        this.sink = groupCount + restaurantCount + 1;
+        this.head = new int[sink + 1];
+        this.tail = new int[sink + 1];
+        Arrays.fill(head, -1);
+        this.to = new int[16];
+        this.next = new int[16];
+        this.capacity = new int[16];
+        this.cost = new long[16];
+        this.optionEdges = new int[8];
+    }
+
+    void setGroupSize(int group, int size) {
+        addEdge(source, group + 1, size, 0);
+    }
+
+    void setCapacity(int restaurant, int remainingCapacity) {
+        addEdge(groupCount + 1 + restaurant, sink, Math.max(0, remainingCapacity), 0);
+    }
+
+    /**
+     * Allow a group to be served by a restaurant at the given price.
+     * 
+     * @return Index of the option, for assigned()
+     */
+    int addOption(int group, int restaurant, long priceCents) {
+        if (optionCount == optionEdges.length) {
+            optionEdges = Arrays.copyOf(optionEdges, optionCount * 2);
+        }
+        optionEdges[optionCount] = addEdge(group + 1, groupCount + 1 + restaurant, Integer.MAX_VALUE, priceCents);
+        return optionCount++;
+    }
+
+    /**
+     * Number of orders of the option's group assigned to its restaurant, after solve().
+     */
+    int assigned(int option) {
+        // The flow on an edge is the capacity of its residual edge
+        return capacity[optionEdges[option] ^ 1];
+    }
+
+    void solve() {
+        int nodes = sink + 1;
+        long[] distance = new long[nodes];
+        int[] via = new int[nodes];
+        boolean[] queued = new boolean[nodes];
+        // Each node is queued at most once at a time, so a ring of nodes + 1 slots suffices
+        int[] queue = new int[nodes + 1];
+        
+        while (true) {
+            // Cheapest augmenting path; residual edges can have negative costs
+            Arrays.fill(distance, Long.MAX_VALUE);
+            Arrays.fill(via, -1);
+            distance[source] = 0;
+            int first = 0;
+            int last = 0;
+            queue[last++] = source;
+            queued[source] = true;
+            while (first != last) {
+                int node = queue[first];
+                first = (first + 1) % queue.length;
+                queued[node] = false;
+                for (int e = head[node]; e >= 0; e = next[e]) {
+                    if (capacity[e] > 0 && distance[node] + cost[e] < distance[to[e]]) {
+                        distance[to[e]] = distance[node] + cost[e];
+                        via[to[e]] = e;
+                        if (!queued[to[e]]) {
+                            queue[last] = to[e];
+                            last = (last + 1) % queue.length;
+                            queued[to[e]] = true;
+                        }
+                    }
+                }
+            }
+            if (via[sink] < 0) {
+                return;
+            }
+            
+            int bottleneck = Integer.MAX_VALUE;
+            for (int node = sink; node != source; node = to[via[node] ^ 1]) {
+                bottleneck = Math.min(bottleneck, capacity[via[node]]);
+            }
+            for (int node = sink; node != source; node = to[via[node] ^ 1]) {
+                capacity[via[node]] -= bottleneck;
+                capacity[via[node] ^ 1] += bottleneck;
+            }
+        }
+    }
+
+    private int addEdge(int from, int target, int edgeCapacity, long edgeCost) {
+        if (edgeCount + 2 > to.length) {
+            int length = to.length * 2;
+            to = Arrays.copyOf(to, length);
+            next = Arrays.copyOf(next, length);
+            capacity = Arrays.copyOf(capacity, length);
+            cost = Arrays.copyOf(cost, length);
+        }
+        int forward = edgeCount;
+        link(from, target, edgeCapacity, edgeCost);
+        link(target, from, 0, -edgeCost);
+        return forward;
+    }
+
+    private void link(int from, int target, int edgeCapacity, long edgeCost) {
+        to[edgeCount] = target;
+        capacity[edgeCount] = edgeCapacity;
+        cost[edgeCount] = edgeCost;
+        // Append, so paths of equal cost prefer restaurants added first
+        next[edgeCount] = -1;
+        if (head[from] < 0) {
+            head[from] = edgeCount;
+        } else {
+            next[tail[from]] = edgeCount;
+        }
+        tail[from] = edgeCount++;
+    }
+}
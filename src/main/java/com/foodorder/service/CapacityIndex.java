@@ -0,0 +1,132 @@
+package com.foodorder.service;
+
+import com.foodorder.model.Restaurant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Index of restaurants ordered by remaining processing capacity, highest first.
+ * Restaurants with equal remaining capacity are ordered by onboarding sequence,
+ * so walks are deterministic.
+ * 
+ * The index is updated incrementally whenever a restaurant's load changes. Each
+ * update re-reads the restaurant's current load, so the index converges on the
+ * latest value even when updates for the same restaurant race.
+ */
+public class CapacityIndex {
+    private static final Comparator<Entry> ORDER = Comparator
+            .comparingInt((Entry e) -> -e.remainingCapacity)
+            .thenComparingLong(e -> e.sequence);
+
+    private final ConcurrentSkipListSet<Entry> entries;
+    private final Map<String, Entry> currentEntries;
+    private final AtomicLong nextSequence;
+
+    public CapacityIndex() {
+        this.entries = new ConcurrentSkipListSet<>(ORDER);
+        this.currentEntries = new ConcurrentHashMap<>();
+        this.nextSequence = new AtomicLong();
+    }
+
+    /**
+     * Add a newly onboarded restaurant to the index.
+     * 
+     * @param restaurant The restaurant to add
+     */
+    public void add(Restaurant restaurant) {
+        Entry entry = new Entry(restaurant, restaurant.getRemainingCapacity(), nextSequence.getAndIncrement());
+        currentEntries.put(restaurant.getRestaurantId(), entry);
+        entries.add(entry);
+    }
+
+    /**
+     * Reposition a restaurant after its load changed.
+     * 
+     * @param restaurant The restaurant whose load changed
+     */
+    public void update(Restaurant restaurant) {
+        currentEntries.computeIfPresent(restaurant.getRestaurantId(), (id, entry) -> {
+            int remainingCapacity = restaurant.getRemainingCapacity();
+            if (remainingCapacity == entry.remainingCapacity) {
+                return entry;
+            }
+            Entry moved = new Entry(restaurant, remainingCapacity, entry.sequence);
+            entries.add(moved);
+            entries.remove(entry);
+            return moved;
+        });
+    }
+
+    /**
+     * Iterate restaurants with spare capacity, highest remaining capacity first.
+     * The iteration is weakly consistent with concurrent updates, so callers
+     * should still check the restaurant's live capacity.
+     * 
+     * @return Iterator over restaurants with remaining capacity above zero
+     */
+    public Iterator<Restaurant> byRemainingCapacity() {
+        final Iterator<Entry> iterator = entries.iterator();
+        return new Iterator<Restaurant>() {
+            private Entry next = advance();
+
+            private Entry advance() {
+                if (iterator.hasNext()) {
+                    Entry entry = iterator.next();
+                    if (entry.remainingCapacity > 0) {
+                        return entry;
+                    }
+                }
+                return null;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public Restaurant next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                Restaurant restaurant = next.restaurant;
+                next = advance();
+                return restaurant;
+            }
+        };
+    }
+
+    /**
+     * Get every indexed restaurant in onboarding order.
+     * 
+     * @return Restaurants in the order they were added
+     */
+    public List<Restaurant> inOnboardingOrder() {
+        List<Entry> snapshot = new ArrayList<>(currentEntries.values());
+        snapshot.sort(Comparator.comparingLong(e -> e.sequence));
+        List<Restaurant> restaurants = new ArrayList<>(snapshot.size());
+        for (Entry entry : snapshot) {
+            restaurants.add(entry.restaurant);
+        }
+        return restaurants;
+    }
+
+    private static final class Entry {
+        private final Restaurant restaurant;
+        private final int remainingCapacity;
+        private final long sequence;
+
+        private Entry(Restaurant restaurant, int remainingCapacity, long sequence) {
+            this.restaurant = restaurant;
+            this.remainingCapacity = remainingCapacity;
+            this.sequence = sequence;
+        }
+    }
+}
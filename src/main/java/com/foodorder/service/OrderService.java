@@ -1,28 +1,90 @@
 package com.foodorder.service;
 
-import com.foodorder.model.MenuItem;
+import com.foodorder.metrics.Metrics;
+import com.foodorder.model.Basket;
+import com.foodorder.model.MenuSnapshot;
 import com.foodorder.model.Order;
 import com.foodorder.model.Restaurant;
 import com.foodorder.strategy.RestaurantSelectionStrategy;
+import com.foodorder.strategy.Selection;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Service for managing orders in the system.
  * Updated for Java 8.
+ * 
+ * Safe for concurrent use. Operations on the same order ID are serialized by a
+ * striped lock, so unrelated orders can be placed and dispatched in parallel.
+ * 
+ * With a reservation timeout set, an order not dispatched within the timeout
+ * expires: it is removed and its restaurant slot is released. Deadlines are kept
+ * in a timer wheel; dispatching does not cancel them, expiry just skips orders
+ * that are no longer pending.
  */
 public class OrderService {
+    private static final int DEFAULT_LOCK_STRIPES = 64;
+    private static final int TIMER_TICKS_PER_TIMEOUT = 100;
+    private static final int TIMER_WHEEL_SIZE = 256;
+
     private final Map<String, Order> orders;
+    private final List<Order> dispatchedOrders;
     private final RestaurantService restaurantService;
-    private RestaurantSelectionStrategy selectionStrategy;
+    private final Object[] orderLocks;
+    private volatile RestaurantSelectionStrategy selectionStrategy;
+    private volatile StateChangeListener stateChangeListener;
+    private volatile TimerWheel<Order> reservationTimer;
+    private volatile long reservationTimeoutMillis;
 
     public OrderService(RestaurantService restaurantService, RestaurantSelectionStrategy selectionStrategy) {
-        this.orders = new HashMap<>();
+        this(restaurantService, selectionStrategy, DEFAULT_LOCK_STRIPES);
+    }
+
+    public OrderService(RestaurantService restaurantService, RestaurantSelectionStrategy selectionStrategy,
+                        int lockStripes) {
+        if (lockStripes <= 0 || Integer.bitCount(lockStripes) != 1) {
+            throw new IllegalArgumentException("Lock stripes must be a positive power of two: " + lockStripes);
+        }
+        this.orders = new ConcurrentHashMap<>();
+        this.dispatchedOrders = new ArrayList<>();
         this.restaurantService = restaurantService;
         this.selectionStrategy = selectionStrategy;
+        this.orderLocks = new Object[lockStripes];
+        for (int i = 0; i < lockStripes; i++) {
+            orderLocks[i] = new Object();
+        }
+    }
+
+    private Object lockFor(String orderId) {
+        int h = orderId.hashCode();
+        return orderLocks[(h ^ (h >>> 16)) & (orderLocks.length - 1)];
+    }
+
+    /**
+     * Run an action while no order is being placed, dispatched or expired, by
+     * holding every order lock. Must not be called with an order lock already
+     * held, e.g. from a StateChangeListener.
+     * 
+     * @param action The action, typically reading a consistent view of all orders
+     */
+    public void runExclusive(Runnable action) {
+        runHoldingLocks(0, action);
+    }
+
+    private void runHoldingLocks(int stripe, Runnable action) {
+        if (stripe == orderLocks.length) {
+            action.run();
+            return;
+        }
+        synchronized (orderLocks[stripe]) {
+            runHoldingLocks(stripe + 1, action);
+        }
     }
 
     /**
@@ -32,6 +94,64 @@ public class OrderService {
      */
     public void setSelectionStrategy(RestaurantSelectionStrategy selectionStrategy) {
         this.selectionStrategy = selectionStrategy;
+        
+        StateChangeListener listener = stateChangeListener;
+        if (listener != null) {
+            listener.onStrategyChanged(selectionStrategy.getName());
+        }
+    }
+
+    /**
+     * Get the current restaurant selection strategy.
+     * 
+     * @return The selection strategy
+     */
+    public RestaurantSelectionStrategy getSelectionStrategy() {
+        return selectionStrategy;
+    }
+
+    /**
+     * Set the listener notified after every order placement, dispatch and strategy change.
+     * 
+     * @param stateChangeListener The listener, or null to remove it
+     */
+    public void setStateChangeListener(StateChangeListener stateChangeListener) {
+        this.stateChangeListener = stateChangeListener;
+    }
+
+    /**
+     * Set how long a placed order holds its restaurant slot before it expires, if
+     * not dispatched. Reservations made under a previous timeout are dropped and no
+     * longer expire.
+     * 
+     * @param timeoutMillis Timeout in milliseconds, or 0 to hold slots until dispatch
+     */
+    public synchronized void setReservationTimeout(long timeoutMillis) {
+        if (timeoutMillis < 0) {
+            throw new IllegalArgumentException("Reservation timeout must not be negative");
+        }
+        TimerWheel<Order> previous = reservationTimer;
+        if (timeoutMillis > 0) {
+            TimerWheel<Order> timer = new TimerWheel<>(Math.max(1, timeoutMillis / TIMER_TICKS_PER_TIMEOUT),
+                    TimeUnit.MILLISECONDS, TIMER_WHEEL_SIZE, order -> expire(order.getOrderId(), order));
+            timer.start("reservation-timer");
+            reservationTimer = timer;
+        } else {
+            reservationTimer = null;
+        }
+        reservationTimeoutMillis = timeoutMillis;
+        if (previous != null) {
+            previous.close();
+        }
+    }
+
+    /**
+     * Get the reservation timeout.
+     * 
+     * @return Timeout in milliseconds, 0 if slots are held until dispatch
+     */
+    public long getReservationTimeout() {
+        return reservationTimeoutMillis;
     }
 
     /**
@@ -42,32 +162,184 @@ public class OrderService {
      * @return The newly created order or null if the order cannot be placed
      */
     public Order placeOrder(String orderId, List<String> items) {
-        if (orders.containsKey(orderId)) {
-            throw new IllegalArgumentException("Order with ID " + orderId + " already exists");
+        return placeOrder(orderId, Basket.of(items));
+    }
+
+    /**
+     * Place a new order with the given items and quantities.
+     * 
+     * @param orderId Unique identifier for the order
+     * @param basket Items of the order with their quantities
+     * @return The newly created order or null if the order cannot be placed
+     */
+    public Order placeOrder(String orderId, Basket basket) {
+        synchronized (lockFor(orderId)) {
+            if (orders.containsKey(orderId)) {
+                Metrics.duplicateOrderId();
+                throw new IllegalArgumentException("Order with ID " + orderId + " already exists");
+            }
+            
+            // Select a restaurant based on the strategy, among those serving every item.
+            // Another thread may take the last slot between selection and reservation,
+            // in which case the selection is simply repeated.
+            RestaurantSelectionStrategy strategy = selectionStrategy;
+            Selection selection;
+            do {
+                long start = Metrics.startTimer();
+                selection = strategy.select(restaurantService, basket);
+                Metrics.recordSelection(strategy.getName(), start);
+                if (selection == null) {
+                    Metrics.orderRejected();
+                    return null; // No restaurant can fulfill the order
+                }
+            } while (!selection.getRestaurant().addOrder(orderId));
+            
+            return storeOrder(orderId, basket, selection.getRestaurant(), selection.getMenu());
+        }
+    }
+
+    /**
+     * Place a batch of orders that arrived together, choosing restaurants for the
+     * whole batch at once instead of committing greedily order by order.
+     * 
+     * Candidate restaurants and prices are evaluated once per distinct basket. The
+     * assignment fulfils as many orders as the restaurants' remaining capacity
+     * allows and, among such assignments, minimizes the total price; the selection
+     * strategy is not consulted. Capacity is then reserved once per restaurant.
+     * Orders whose reservation is lost to a concurrent caller fall back to placeOrder().
+     * 
+     * @param batch Order IDs mapped to their baskets, in arrival order
+     * @return The placed orders in batch order, with null for orders that cannot be placed
+     */
+    public List<Order> placeOrders(Map<String, Basket> batch) {
+        for (String orderId : batch.keySet()) {
+            if (orders.containsKey(orderId)) {
+                Metrics.duplicateOrderId();
+                throw new IllegalArgumentException("Order with ID " + orderId + " already exists");
+            }
         }
+        long start = Metrics.startTimer();
         
-        // Select a restaurant based on the strategy
-        List<Restaurant> restaurants = restaurantService.getAllRestaurants();
-        Restaurant selectedRestaurant = selectionStrategy.selectRestaurant(restaurants, items);
+        // Group the orders by basket, so candidates and prices are evaluated once per basket
+        List<String> orderIds = new ArrayList<>(batch.keySet());
+        Map<BasketKey, List<Integer>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < orderIds.size(); i++) {
+            groups.computeIfAbsent(BasketKey.of(batch.get(orderIds.get(i))), k -> new ArrayList<>()).add(i);
+        }
+        
+        List<List<Integer>> groupOrders = new ArrayList<>(groups.values());
+        List<List<Restaurant>> groupCandidates = new ArrayList<>(groupOrders.size());
+        Map<Restaurant, Integer> restaurantIndex = new LinkedHashMap<>();
+        for (List<Integer> group : groupOrders) {
+            List<Restaurant> candidates = restaurantService.findRestaurantsServingAll(batch.get(orderIds.get(group.get(0))));
+            groupCandidates.add(candidates);
+            for (Restaurant restaurant : candidates) {
+                restaurantIndex.putIfAbsent(restaurant, restaurantIndex.size());
+            }
+        }
+        List<Restaurant> restaurants = new ArrayList<>(restaurantIndex.keySet());
+        
+        // Each restaurant is priced at one menu version, which its orders are then charged
+        BatchAssignment assignment = new BatchAssignment(groupOrders.size(), restaurants.size());
+        MenuSnapshot[] menus = new MenuSnapshot[restaurants.size()];
+        for (int r = 0; r < restaurants.size(); r++) {
+            assignment.setCapacity(r, restaurants.get(r).getRemainingCapacity());
+            menus[r] = restaurants.get(r).getMenuSnapshot();
+        }
+        BasketPriceCache priceCache = restaurantService.getBasketPriceCache();
+        List<BasketKey> baskets = new ArrayList<>(groups.keySet());
+        int[][] options = new int[groupOrders.size()][];
+        for (int g = 0; g < groupOrders.size(); g++) {
+            assignment.setGroupSize(g, groupOrders.get(g).size());
+            List<Restaurant> candidates = groupCandidates.get(g);
+            options[g] = new int[candidates.size()];
+            for (int c = 0; c < candidates.size(); c++) {
+                Restaurant restaurant = candidates.get(c);
+                int r = restaurantIndex.get(restaurant);
+                long priceCents = Math.round(priceCache.getTotalPrice(restaurant, menus[r], baskets.get(g)) * 100);
+                options[g][c] = assignment.addOption(g, r, priceCents);
+            }
+        }
+        assignment.solve();
+        
+        // Hand each restaurant its orders, in batch order within each basket
+        List<List<Integer>> assignedOrders = new ArrayList<>(restaurants.size());
+        for (int r = 0; r < restaurants.size(); r++) {
+            assignedOrders.add(new ArrayList<>());
+        }
+        List<Integer> unassigned = new ArrayList<>();
+        for (int g = 0; g < groupOrders.size(); g++) {
+            Iterator<Integer> members = groupOrders.get(g).iterator();
+            List<Restaurant> candidates = groupCandidates.get(g);
+            for (int c = 0; c < candidates.size(); c++) {
+                List<Integer> target = assignedOrders.get(restaurantIndex.get(candidates.get(c)));
+                for (int n = assignment.assigned(options[g][c]); n > 0; n--) {
+                    target.add(members.next());
+                }
+            }
+            members.forEachRemaining(unassigned::add);
+        }
+        Metrics.recordSelection("batch", start);
         
-        if (selectedRestaurant == null) {
-            return null; // No restaurant can fulfill the order
+        Order[] placed = new Order[orderIds.size()];
+        List<Integer> retry = new ArrayList<>();
+        for (int r = 0; r < restaurants.size(); r++) {
+            List<Integer> assigned = assignedOrders.get(r);
+            if (assigned.isEmpty()) {
+                continue;
+            }
+            Restaurant restaurant = restaurants.get(r);
+            int reserved = restaurant.reserve(assigned.size());
+            for (int i = 0; i < assigned.size(); i++) {
+                int index = assigned.get(i);
+                if (i >= reserved) {
+                    retry.add(index); // Capacity was taken concurrently since the assignment
+                    continue;
+                }
+                String orderId = orderIds.get(index);
+                synchronized (lockFor(orderId)) {
+                    if (orders.containsKey(orderId)) {
+                        // Placed concurrently under the same ID
+                        Metrics.duplicateOrderId();
+                        restaurant.releaseReservations(1);
+                        continue;
+                    }
+                    restaurant.attachOrder(orderId);
+                    placed[index] = storeOrder(orderId, batch.get(orderId), restaurant, menus[r]);
+                }
+            }
         }
         
-        // Calculate total price
-        double totalAmount = 0;
-        for (String itemId : items) {
-            MenuItem menuItem = selectedRestaurant.getMenuItem(itemId);
-            totalAmount += menuItem.getPrice();
+        for (int index : retry) {
+            try {
+                placed[index] = placeOrder(orderIds.get(index), batch.get(orderIds.get(index)));
+            } catch (IllegalArgumentException e) {
+                placed[index] = null; // Placed concurrently under the same ID
+            }
         }
+        for (int i = 0; i < unassigned.size(); i++) {
+            Metrics.orderRejected();
+        }
+        return Arrays.asList(placed);
+    }
+
+    /**
+     * Create and store an order that already holds a slot at its restaurant, priced
+     * at the menu snapshot the restaurant was chosen on. Must be called with the
+     * order's lock held.
+     */
+    private Order storeOrder(String orderId, Basket basket, Restaurant restaurant, MenuSnapshot menu) {
+        double totalAmount = menu.getTotalPrice(basket);
         
         // Create and store the order
-        Order order = new Order(orderId, items, selectedRestaurant.getRestaurantId(), totalAmount);
+        Order order = new Order(orderId, basket, restaurant.getRestaurantId(), totalAmount);
         orders.put(orderId, order);
+        scheduleExpiry(order);
         
-        // Add the order to the restaurant
-        selectedRestaurant.addOrder(orderId);
-        
+        StateChangeListener listener = stateChangeListener;
+        if (listener != null) {
+            listener.onOrderPlaced(order);
+        }
         return order;
     }
 
@@ -78,23 +350,105 @@ public class OrderService {
      * @return The dispatched order
      */
     public Order dispatchOrder(String orderId) {
-        if (!orders.containsKey(orderId)) {
-            throw new IllegalArgumentException("Order with ID " + orderId + " not found");
+        synchronized (lockFor(orderId)) {
+            Order order = orders.get(orderId);
+            if (order == null) {
+                throw new IllegalArgumentException("Order with ID " + orderId + " not found");
+            }
+            
+            if (order.isDispatched()) {
+                throw new IllegalStateException("Order with ID " + orderId + " is already dispatched");
+            }
+            
+            // Mark the order as dispatched
+            order.markAsDispatched();
+            
+            // Update the restaurant
+            Restaurant restaurant = restaurantService.getRestaurant(order.getRestaurantId());
+            restaurant.dispatchOrder(order);
+            
+            synchronized (dispatchedOrders) {
+                dispatchedOrders.add(order);
+            }
+            
+            StateChangeListener listener = stateChangeListener;
+            if (listener != null) {
+                listener.onOrderDispatched(order);
+            }
+            return order;
         }
-        
-        Order order = orders.get(orderId);
-        if (order.isDispatched()) {
-            throw new IllegalStateException("Order with ID " + orderId + " is already dispatched");
+    }
+
+    /**
+     * Restore an order whose restaurant was already chosen, e.g. during recovery.
+     * A pending order takes up a slot at its restaurant even beyond its capacity,
+     * since replayed changes to different orders need not be in the order they
+     * happened; a dispatched one is only appended to the dispatched-orders index.
+     * Restoring an existing order ID is a no-op.
+     * 
+     * @param order The order to restore
+     * @return The stored order
+     */
+    public Order restoreOrder(Order order) {
+        synchronized (lockFor(order.getOrderId())) {
+            Order existing = orders.get(order.getOrderId());
+            if (existing != null) {
+                return existing;
+            }
+            
+            if (order.isDispatched()) {
+                synchronized (dispatchedOrders) {
+                    dispatchedOrders.add(order);
+                }
+            } else {
+                restaurantService.getRestaurant(order.getRestaurantId()).restoreOrder(order.getOrderId());
+                // The original deadline is not persisted, so a restored order gets a full timeout
+                scheduleExpiry(order);
+            }
+            orders.put(order.getOrderId(), order);
+            return order;
+        }
+    }
+
+    /**
+     * Expire a pending order now: remove it and release its restaurant slot.
+     * Expiring an unknown or dispatched order is a no-op.
+     * 
+     * @param orderId ID of the order
+     * @return True if the order expired
+     */
+    public boolean expireOrder(String orderId) {
+        return expire(orderId, null);
+    }
+
+    private void scheduleExpiry(Order order) {
+        TimerWheel<Order> timer = reservationTimer;
+        if (timer != null) {
+            timer.schedule(order, reservationTimeoutMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Expire an order if it is still pending and, when expected is given, is still
+     * that order rather than a later one placed under the same ID.
+     */
+    private boolean expire(String orderId, Order expected) {
+        synchronized (lockFor(orderId)) {
+            Order order = orders.get(orderId);
+            if (order == null || order.isDispatched() || (expected != null && order != expected)) {
+                return false;
+            }
+            
+            orders.remove(orderId);
+            restaurantService.getRestaurant(order.getRestaurantId()).releaseOrder(orderId);
+            Metrics.orderExpired();
+            
+            StateChangeListener listener = stateChangeListener;
+            if (listener != null) {
+                listener.onOrderExpired(order);
+            }
+            return true;
         }
-        
-        // Mark the order as dispatched
-        order.markAsDispatched();
-        
-        // Update the restaurant
-        Restaurant restaurant = restaurantService.getRestaurant(order.getRestaurantId());
-        restaurant.dispatchOrder(orderId, order.getItems());
-        
-        return order;
     }
 
     /**
@@ -119,11 +473,41 @@ public class OrderService {
     /**
      * Get all dispatched orders.
      * 
-     * @return List of dispatched orders
+     * @return List of dispatched orders, in dispatch order
      */
     public List<Order> getDispatchedOrders() {
-        return orders.values().stream()
-                .filter(Order::isDispatched)
-                .collect(Collectors.toList());
+        synchronized (dispatchedOrders) {
+            return new ArrayList<>(dispatchedOrders);
+        }
+    }
+
+    /**
+     * Get a page of dispatched orders. Cost is proportional to the page size,
+     * not to the order history.
+     * 
+     * @param offset Position of the first order to return, in dispatch order
+     * @param limit Maximum number of orders to return
+     * @return Dispatched orders from offset, at most limit of them
+     */
+    public List<Order> getDispatchedOrders(int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("Offset and limit must not be negative");
+        }
+        synchronized (dispatchedOrders) {
+            int from = Math.min(offset, dispatchedOrders.size());
+            int to = (int) Math.min((long) from + limit, dispatchedOrders.size());
+            return new ArrayList<>(dispatchedOrders.subList(from, to));
+        }
+    }
+
+    /**
+     * Get the number of dispatched orders.
+     * 
+     * @return Count of dispatched orders
+     */
+    public int getDispatchedOrderCount() {
+        synchronized (dispatchedOrders) {
+            return dispatchedOrders.size();
+        }
     }
-} 
\ No newline at end of file
+}
\ No newline at end of file
@@ -0,0 +1,132 @@
+package com.foodorder.service;
+
+import com.foodorder.model.MenuItem;
+import com.foodorder.model.Restaurant;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-item leaderboards of the restaurants serving an item, cheapest first.
+ * Restaurants with equal prices are ordered by onboarding sequence, so walks
+ * are deterministic.
+ * 
+ * Leaderboards are updated incrementally on onboarding and price updates. A
+ * moved entry is inserted before its old position is removed, so a concurrent
+ * walk may see a restaurant twice but never misses it.
+ */
+public class PriceIndex {
+    private static final Comparator<Entry> ORDER = Comparator
+            .comparingDouble((Entry e) -> e.price)
+            .thenComparingLong(e -> e.sequence);
+
+    private final Map<String, Leaderboard> leaderboards;
+    private final AtomicLong nextSequence;
+
+    public PriceIndex() {
+        this.leaderboards = new ConcurrentHashMap<>();
+        this.nextSequence = new AtomicLong();
+    }
+
+    /**
+     * Add a newly onboarded restaurant to the leaderboard of every item it serves.
+     * 
+     * @param restaurant The restaurant to add
+     */
+    public void add(Restaurant restaurant) {
+        long sequence = nextSequence.getAndIncrement();
+        for (MenuItem item : restaurant.getMenu().values()) {
+            Leaderboard leaderboard = leaderboards.computeIfAbsent(item.getItemId(), k -> new Leaderboard());
+            leaderboard.put(new Entry(restaurant, item.getPrice(), sequence));
+        }
+    }
+
+    /**
+     * Reposition a restaurant on an item's leaderboard after a price update.
+     * The current price is re-read from the menu, so the leaderboard converges on
+     * the latest price even when updates for the same item race.
+     * 
+     * @param restaurant The restaurant whose price changed
+     * @param itemId The item whose price changed
+     */
+    public void update(Restaurant restaurant, String itemId) {
+        Leaderboard leaderboard = leaderboards.get(itemId);
+        if (leaderboard != null) {
+            leaderboard.reprice(restaurant, itemId);
+        }
+    }
+
+    /**
+     * Iterate the restaurants serving an item, cheapest first. The iteration is
+     * weakly consistent with concurrent updates.
+     * 
+     * @param itemId The item
+     * @return Iterator over the item's leaderboard
+     */
+    public Iterator<Entry> byPrice(String itemId) {
+        Leaderboard leaderboard = leaderboards.get(itemId);
+        return leaderboard == null ? Collections.<Entry>emptyIterator() : leaderboard.entries.iterator();
+    }
+
+    private static final class Leaderboard {
+        private final ConcurrentSkipListSet<Entry> entries;
+        private final Map<String, Entry> currentEntries;
+
+        Leaderboard() {
+            this.entries = new ConcurrentSkipListSet<>(ORDER);
+            this.currentEntries = new ConcurrentHashMap<>();
+        }
+
+        void put(Entry entry) {
+            currentEntries.put(entry.restaurant.getRestaurantId(), entry);
+            entries.add(entry);
+        }
+
+        void reprice(Restaurant restaurant, String itemId) {
+            currentEntries.computeIfPresent(restaurant.getRestaurantId(), (id, entry) -> {
+                double newPrice = restaurant.getMenuItem(itemId).getPrice();
+                if (entry.price == newPrice) {
+                    return entry;
+                }
+                Entry moved = new Entry(restaurant, newPrice, entry.sequence);
+                entries.add(moved);
+                entries.remove(entry);
+                return moved;
+            });
+        }
+    }
+
+    /**
+     * A restaurant's position on an item's leaderboard.
+     */
+    public static final class Entry {
+        private final Restaurant restaurant;
+        private final double price;
+        private final long sequence;
+
+        private Entry(Restaurant restaurant, double price, long sequence) {
+            this.restaurant = restaurant;
+            this.price = price;
+            this.sequence = sequence;
+        }
+
+        public Restaurant getRestaurant() {
+            return restaurant;
+        }
+
+        public double getPrice() {
+            return price;
+        }
+
+        /**
+         * Onboarding sequence of the restaurant, used to break price ties.
+         */
+        public long getSequence() {
+            return sequence;
+        }
+    }
+}
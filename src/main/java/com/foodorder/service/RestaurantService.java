@@ -1,21 +1,43 @@
 package com.foodorder.service;
 
+import com.foodorder.model.Basket;
 import com.foodorder.model.MenuItem;
 import com.foodorder.model.Restaurant;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Service for managing restaurants in the system.
  * Updated for Java 8.
+ * 
+ * Safe for concurrent use; onboarding is rare, so the item index uses
+ * copy-on-write posting lists that readers can walk without locking.
  */
 public class RestaurantService {
     private final Map<String, Restaurant> restaurants;
+    private final Map<String, List<Restaurant>> restaurantsByItem;
+    private final CapacityIndex capacityIndex;
+    private final PriceIndex priceIndex;
+    private final BasketPriceCache basketPriceCache;
+    private volatile StateChangeListener stateChangeListener;
 
     public RestaurantService() {
-        this.restaurants = new HashMap<>();
+        this(BasketPriceCache.DEFAULT_MAXIMUM_SIZE);
+    }
+
+    /**
+     * @param basketPriceCacheSize Maximum number of cached basket prices, 0 to disable caching
+     */
+    public RestaurantService(int basketPriceCacheSize) {
+        this.restaurants = new ConcurrentHashMap<>();
+        this.restaurantsByItem = new ConcurrentHashMap<>();
+        this.capacityIndex = new CapacityIndex();
+        this.priceIndex = new PriceIndex();
+        this.basketPriceCache = new BasketPriceCache(basketPriceCacheSize);
     }
 
     /**
@@ -27,12 +49,25 @@ public class RestaurantService {
      * @return The newly created restaurant
      */
     public Restaurant onboardRestaurant(String restaurantId, List<MenuItem> menuItems, int maxProcessingCapacity) {
-        if (restaurants.containsKey(restaurantId)) {
+        Restaurant restaurant = new Restaurant(restaurantId, menuItems, maxProcessingCapacity);
+        if (restaurants.putIfAbsent(restaurantId, restaurant) != null) {
             throw new IllegalArgumentException("Restaurant with ID " + restaurantId + " already exists");
         }
         
-        Restaurant restaurant = new Restaurant(restaurantId, menuItems, maxProcessingCapacity);
-        restaurants.put(restaurantId, restaurant);
+        // Index the restaurant under every item it serves
+        for (String itemId : restaurant.getMenu().keySet()) {
+            restaurantsByItem.computeIfAbsent(itemId, k -> new CopyOnWriteArrayList<>()).add(restaurant);
+        }
+        priceIndex.add(restaurant);
+        
+        // Keep the capacity index in step with the restaurant's load
+        capacityIndex.add(restaurant);
+        restaurant.setLoadListener(capacityIndex::update);
+        
+        StateChangeListener listener = stateChangeListener;
+        if (listener != null) {
+            listener.onRestaurantOnboarded(restaurant);
+        }
         return restaurant;
     }
 
@@ -46,7 +81,17 @@ public class RestaurantService {
      */
     public Restaurant updateItemPrice(String restaurantId, String itemId, double newPrice) {
         Restaurant restaurant = getRestaurant(restaurantId);
-        restaurant.updateItemPrice(itemId, newPrice);
+        // Updates to one restaurant are applied and reported under its lock, so a
+        // listener such as the WAL records them in the order they took effect
+        synchronized (restaurant) {
+            restaurant.updateItemPrice(itemId, newPrice);
+            
+            StateChangeListener listener = stateChangeListener;
+            if (listener != null) {
+                listener.onItemPriceUpdated(restaurantId, itemId, newPrice);
+            }
+        }
+        priceIndex.update(restaurant, itemId);
         return restaurant;
     }
 
@@ -57,10 +102,11 @@ public class RestaurantService {
      * @return The restaurant or null if not found
      */
     public Restaurant getRestaurant(String restaurantId) {
-        if (!restaurants.containsKey(restaurantId)) {
+        Restaurant restaurant = restaurants.get(restaurantId);
+        if (restaurant == null) {
             throw new IllegalArgumentException("Restaurant with ID " + restaurantId + " not found");
         }
-        return restaurants.get(restaurantId);
+        return restaurant;
     }
 
     /**
@@ -73,21 +119,126 @@ public class RestaurantService {
     }
 
     /**
-     * List all items served by a restaurant with their prices.
+     * Check whether a restaurant has been onboarded.
      * 
      * @param restaurantId ID of the restaurant
-     * @return Map of item IDs to prices
+     * @return True if the restaurant exists
      */
-    public Map<String, Double> listItems(String restaurantId) {
-        Restaurant restaurant = getRestaurant(restaurantId);
-        Map<String, MenuItem> menu = restaurant.getMenu();
+    public boolean hasRestaurant(String restaurantId) {
+        return restaurants.containsKey(restaurantId);
+    }
+
+    /**
+     * Set the listener notified after every onboarding and price update.
+     * 
+     * @param stateChangeListener The listener, or null to remove it
+     */
+    public void setStateChangeListener(StateChangeListener stateChangeListener) {
+        this.stateChangeListener = stateChangeListener;
+    }
+
+    /**
+     * Get the index of restaurants ordered by remaining processing capacity.
+     * 
+     * @return The capacity index
+     */
+    public CapacityIndex getCapacityIndex() {
+        return capacityIndex;
+    }
+
+    /**
+     * Get the per-item leaderboards of restaurants ordered by price.
+     * 
+     * @return The price index
+     */
+    public PriceIndex getPriceIndex() {
+        return priceIndex;
+    }
+
+    /**
+     * Get the cache of basket prices per restaurant.
+     * 
+     * @return The basket price cache
+     */
+    public BasketPriceCache getBasketPriceCache() {
+        return basketPriceCache;
+    }
+
+    /**
+     * Get the restaurants that serve an item, in onboarding order.
+     * 
+     * @param itemId ID of the menu item
+     * @return Unmodifiable list of restaurants serving the item
+     */
+    public List<Restaurant> getRestaurantsServing(String itemId) {
+        List<Restaurant> postings = restaurantsByItem.get(itemId);
+        return postings == null ? Collections.<Restaurant>emptyList() : Collections.unmodifiableList(postings);
+    }
+
+    /**
+     * Find the restaurants that serve every item of an order by intersecting the
+     * item index, starting from the item served by the fewest restaurants.
+     * 
+     * @param items List of item IDs in the order
+     * @return Restaurants serving all the items, in onboarding order
+     */
+    public List<Restaurant> findRestaurantsServingAll(List<String> items) {
+        return findRestaurantsServingAll(Basket.of(items));
+    }
+
+    /**
+     * Find the restaurants that serve every item of a basket, checking each
+     * distinct item once whatever its quantity.
+     * 
+     * @param basket The basket
+     * @return Restaurants serving all the items, in onboarding order
+     */
+    public List<Restaurant> findRestaurantsServingAll(Basket basket) {
+        if (basket.isEmpty()) {
+            return getAllRestaurants();
+        }
         
-        Map<String, Double> result = new HashMap<>();
-        for (Map.Entry<String, MenuItem> entry : menu.entrySet()) {
-            result.put(entry.getKey(), entry.getValue().getPrice());
+        // Pick the rarest item; its posting list bounds the candidate set
+        List<Restaurant> rarest = null;
+        for (int line = 0; line < basket.size(); line++) {
+            List<Restaurant> postings = restaurantsByItem.get(basket.getItemId(line));
+            if (postings == null) {
+                return Collections.emptyList();
+            }
+            if (rarest == null || postings.size() < rarest.size()) {
+                rarest = postings;
+            }
         }
         
-        return result;
+        List<Restaurant> candidates = new ArrayList<>();
+        for (Restaurant restaurant : rarest) {
+            if (servesAll(restaurant, basket)) {
+                candidates.add(restaurant);
+            }
+        }
+        return candidates;
+    }
+
+    private boolean servesAll(Restaurant restaurant, Basket basket) {
+        if (!restaurant.mayServeAll(basket.getSignature())) {
+            return false;
+        }
+        for (int line = 0; line < basket.size(); line++) {
+            if (!restaurant.hasItem(basket.getItemId(line))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * List all items served by a restaurant with their prices.
+     * 
+     * @param restaurantId ID of the restaurant
+     * @return Unmodifiable map of item IDs to prices, shared until the next price update
+     */
+    public Map<String, Double> listItems(String restaurantId) {
+        return getRestaurant(restaurantId).getMenuSnapshot().getPrices();
     }
     
     /**
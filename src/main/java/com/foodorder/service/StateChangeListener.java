@@ -0,0 +1,22 @@
+package com.foodorder.service;
+
+import com.foodorder.model.Order;
+import com.foodorder.model.Restaurant;
+
+/**
+ * Listener notified after each change to restaurant or order state has been applied.
+ * Calls for the same order are made in the order the changes were applied.
+ */
+public interface StateChangeListener {
+    void onRestaurantOnboarded(Restaurant restaurant);
+
+    void onItemPriceUpdated(String restaurantId, String itemId, double newPrice);
+
+    void onOrderPlaced(Order order);
+
+    void onOrderDispatched(Order order);
+
+    void onOrderExpired(Order order);
+
+    void onStrategyChanged(String strategyName);
+}
@@ -0,0 +1,175 @@
+package com.foodorder.service;
+
+import java.io.Closeable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Hashed timing wheel for large numbers of timeouts.
+ * 
+ * Time is cut into ticks, and a timeout is hashed to the bucket of the tick it is
+ * due at. Each tick only visits its own bucket, so scheduling is O(1) and expiry
+ * is O(1) per timeout, however many are pending; timeouts further away than one
+ * revolution of the wheel are passed over once per revolution. Timeouts fire at
+ * most one tick late and never early.
+ * 
+ * Scheduling is safe from any thread and only locks the target bucket. Timeouts
+ * cannot be cancelled: the expiry action is expected to check whether the
+ * payload still needs it.
+ * 
+ * @param <T> Type of the payload handed to the expiry action
+ */
+public final class TimerWheel<T> implements Closeable {
+    private final long tickNanos;
+    private final Bucket<T>[] buckets;
+    private final int mask;
+    private final Consumer<T> onExpiry;
+    private final long startNanos;
+    // Last tick whose bucket has been (or is being) expired; only advanced under that bucket's lock
+    private volatile long ticked;
+    private ScheduledExecutorService ticker;
+
+    /**
+     * @param tickDuration Duration of one tick, the precision of the timeouts
+     * @param unit Unit of the tick duration
+     * @param wheelSize Number of buckets, rounded up to a power of two
+     * @param onExpiry Action run on the ticking thread for each expired payload
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public TimerWheel(long tickDuration, TimeUnit unit, int wheelSize, Consumer<T> onExpiry) {
+        if (tickDuration <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException("Tick duration and wheel size must be positive");
+        }
+        this.tickNanos = unit.toNanos(tickDuration);
+        int size = Integer.highestOneBit(Math.max(1, wheelSize - 1)) << 1;
+        this.buckets = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            buckets[i] = new Bucket<>();
+        }
+        this.mask = size - 1;
+        this.onExpiry = onExpiry;
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * Start ticking on a daemon thread.
+     * 
+     * @param threadName Name of the ticking thread
+     */
+    public synchronized void start(String threadName) {
+        if (ticker != null) {
+            return;
+        }
+        ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, threadName);
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(() -> advance(System.nanoTime()), tickNanos, tickNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Schedule a payload to expire after a delay.
+     * 
+     * @param payload Payload handed to the expiry action
+     * @param delay Delay until expiry
+     * @param unit Unit of the delay
+     */
+    public void schedule(T payload, long delay, TimeUnit unit) {
+        long elapsed = System.nanoTime() - startNanos + unit.toNanos(delay);
+        // Round up, so the timeout never fires early
+        long deadline = (elapsed + tickNanos - 1) / tickNanos;
+        while (true) {
+            long tick = Math.max(deadline, ticked + 1);
+            Bucket<T> bucket = buckets[(int) tick & mask];
+            synchronized (bucket) {
+                if (ticked < tick) {
+                    bucket.head = new Node<>(payload, tick, bucket.head);
+                    return;
+                }
+            }
+            // The tick passed while the bucket lock was awaited; take the next one
+        }
+    }
+
+    /**
+     * Expire everything due up to the given time. Called by the ticking thread;
+     * exposed for callers driving the wheel themselves.
+     * 
+     * @param nowNanos Current System.nanoTime()
+     * @return Number of payloads expired
+     */
+    public synchronized int advance(long nowNanos) {
+        long target = (nowNanos - startNanos) / tickNanos;
+        int expired = 0;
+        for (long tick = ticked + 1; tick <= target; tick++) {
+            expired += expire(tick);
+        }
+        return expired;
+    }
+
+    private int expire(long tick) {
+        Node<T> due = null;
+        Bucket<T> bucket = buckets[(int) tick & mask];
+        synchronized (bucket) {
+            ticked = tick;
+            Node<T> previous = null;
+            Node<T> node = bucket.head;
+            while (node != null) {
+                Node<T> next = node.next;
+                if (node.tick <= tick) {
+                    if (previous == null) {
+                        bucket.head = next;
+                    } else {
+                        previous.next = next;
+                    }
+                    node.next = due;
+                    due = node;
+                } else {
+                    previous = node;
+                }
+                node = next;
+            }
+        }
+        
+        // Expiry actions run without the bucket lock, so they may schedule again
+        int expired = 0;
+        for (Node<T> node = due; node != null; node = node.next) {
+            try {
+                onExpiry.accept(node.payload);
+            } catch (RuntimeException e) {
+                System.err.println("Error expiring " + node.payload + ": " + e.getMessage());
+            }
+            expired++;
+        }
+        return expired;
+    }
+
+    /**
+     * Stop ticking. Pending timeouts are dropped.
+     */
+    @Override
+    public synchronized void close() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+        }
+    }
+
+    private static final class Bucket<T> {
+        private Node<T> head;
+    }
+
+    private static final class Node<T> {
+        private final T payload;
+        private final long tick;
+        private Node<T> next;
+
+        Node(T payload, long tick, Node<T> next) {
+            this.payload = payload;
+            this.tick = tick;
+            this.next = next;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.foodorder.shard;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Consistent hash ring mapping keys to nodes.
+ * 
+ * Every node is placed on a 64-bit ring at several pseudo-random points (virtual
+ * nodes), and a key belongs to the node owning the first point at or after the
+ * key's hash. Adding or removing a node only moves the keys between its points
+ * and their predecessors, about 1/N of them. Immutable; build a new ring to change
+ * the node set.
+ * 
+ * @param <T> Type of the nodes
+ */
+public final class ConsistentHashRing<T> {
+    private final long[] points;
+    private final T[] owners;
+
+    /**
+     * @param nodes Nodes to place on the ring
+     * @param name Stable name of a node, hashed to place it
+     * @param virtualNodes Number of points per node
+     */
+    @SuppressWarnings("unchecked")
+    public ConsistentHashRing(List<T> nodes, Function<T, String> name, int virtualNodes) {
+        if (nodes.isEmpty() || virtualNodes <= 0) {
+            throw new IllegalArgumentException("A ring needs at least one node and one virtual node per node");
+        }
+        int count = nodes.size() * virtualNodes;
+        long[][] placed = new long[count][];
+        for (int n = 0; n < nodes.size(); n++) {
+            String nodeName = name.apply(nodes.get(n));
+            for (int v = 0; v < virtualNodes; v++) {
+                placed[n * virtualNodes + v] = new long[] {hash(nodeName + "#" + v), n};
+            }
+        }
+        // Sorted by point, then node index, so colliding points resolve the same way every time
+        Arrays.sort(placed, (a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+        
+        this.points = new long[count];
+        this.owners = (T[]) new Object[count];
+        for (int i = 0; i < count; i++) {
+            points[i] = placed[i][0];
+            owners[i] = nodes.get((int) placed[i][1]);
+        }
+    }
+
+    /**
+     * Get the node owning a key.
+     * 
+     * @param key The key
+     * @return The owning node
+     */
+    public T nodeFor(CharSequence key) {
+        int index = Arrays.binarySearch(points, hash(key));
+        if (index < 0) {
+            index = -index - 1;
+        }
+        // Past the last point, the ring wraps around to the first
+        return owners[index == points.length ? 0 : index];
+    }
+
+    /**
+     * 64-bit FNV-1a over the UTF-16 chars, finished with the MurmurHash3 mixer so
+     * similar keys spread over the whole ring.
+     */
+    static long hash(CharSequence key) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h = (h ^ key.charAt(i)) * 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
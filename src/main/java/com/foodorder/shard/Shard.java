@@ -0,0 +1,101 @@
+package com.foodorder.shard;
+
+import com.foodorder.service.OrderService;
+import com.foodorder.service.RestaurantService;
+import com.foodorder.strategy.RestaurantSelectionStrategy;
+
+import java.io.Closeable;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One partition of a ShardedOrderSystem: a RestaurantService and OrderService
+ * pair owning a subset of the restaurants, and a single writer thread that runs
+ * every change to them in submission order.
+ */
+public final class Shard implements Closeable {
+    private final int index;
+    private final RestaurantService restaurantService;
+    private final OrderService orderService;
+    private final ExecutorService writer;
+
+    Shard(int index, RestaurantSelectionStrategy selectionStrategy) {
+        this.index = index;
+        this.restaurantService = new RestaurantService();
+        this.orderService = new OrderService(restaurantService, selectionStrategy);
+        this.writer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, getName() + "-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * Get the stable name the shard is placed on the hash ring by.
+     */
+    public String getName() {
+        return "shard-" + index;
+    }
+
+    public RestaurantService getRestaurantService() {
+        return restaurantService;
+    }
+
+    public OrderService getOrderService() {
+        return orderService;
+    }
+
+    /**
+     * Queue a task on the shard's writer thread.
+     */
+    <V> Future<V> submit(Callable<V> task) {
+        return writer.submit(task);
+    }
+
+    /**
+     * Run a task on the shard's writer thread and wait for its result.
+     */
+    <V> V call(Callable<V> task) {
+        return await(submit(task));
+    }
+
+    /**
+     * Wait for a task's result, rethrowing the exception it failed with.
+     */
+    static <V> V await(Future<V> future) {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for a shard", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return getName();
+    }
+}
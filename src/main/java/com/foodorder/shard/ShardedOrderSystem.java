@@ -0,0 +1,244 @@
+package com.foodorder.shard;
+
+import com.foodorder.metrics.Metrics;
+import com.foodorder.model.Basket;
+import com.foodorder.model.MenuItem;
+import com.foodorder.model.Order;
+import com.foodorder.model.Restaurant;
+import com.foodorder.strategy.RestaurantSelectionStrategy;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+
+/**
+ * Restaurants and orders partitioned over N in-process shards.
+ * 
+ * Restaurants are assigned to shards by consistent hashing of their ID, and every
+ * change to a shard runs on that shard's writer thread. Placing an order is a
+ * scatter-gather: each shard nominates its best restaurant for the items with the
+ * selection strategy, the same strategy picks the winner among the nominees, and
+ * the order is committed on the winning shard. An order directory remembers which
+ * shard owns each order ID, so dispatches go straight to it.
+ * 
+ * Shards only interact through this class and plain method calls, which is the
+ * seam for moving them onto separate nodes later.
+ */
+public class ShardedOrderSystem implements Closeable {
+    public static final int DEFAULT_VIRTUAL_NODES = 128;
+
+    // Directory value of an order whose placement is still in progress
+    private static final int PENDING = -1;
+
+    private final List<Shard> shards;
+    private final ConsistentHashRing<Shard> ring;
+    private final Map<String, Integer> orderDirectory;
+    private volatile RestaurantSelectionStrategy selectionStrategy;
+
+    public ShardedOrderSystem(int shardCount, RestaurantSelectionStrategy selectionStrategy) {
+        this(shardCount, DEFAULT_VIRTUAL_NODES, selectionStrategy);
+    }
+
+    /**
+     * @param shardCount Number of shards
+     * @param virtualNodes Points per shard on the hash ring
+     * @param selectionStrategy Strategy for both the per-shard nominations and the final pick
+     */
+    public ShardedOrderSystem(int shardCount, int virtualNodes, RestaurantSelectionStrategy selectionStrategy) {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("Shard count must be positive: " + shardCount);
+        }
+        List<Shard> created = new ArrayList<>(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            created.add(new Shard(i, selectionStrategy));
+        }
+        this.shards = Collections.unmodifiableList(created);
+        this.ring = new ConsistentHashRing<>(shards, Shard::getName, virtualNodes);
+        this.orderDirectory = new ConcurrentHashMap<>();
+        this.selectionStrategy = selectionStrategy;
+    }
+
+    /**
+     * Get the shards, in index order.
+     * 
+     * @return Unmodifiable list of the shards
+     */
+    public List<Shard> getShards() {
+        return shards;
+    }
+
+    /**
+     * Get the shard a restaurant is assigned to.
+     * 
+     * @param restaurantId ID of the restaurant
+     * @return The owning shard
+     */
+    public Shard shardFor(String restaurantId) {
+        return ring.nodeFor(restaurantId);
+    }
+
+    /**
+     * Onboard a restaurant on the shard it hashes to.
+     * 
+     * @return The onboarded restaurant
+     */
+    public Restaurant onboardRestaurant(String restaurantId, List<MenuItem> menuItems, int maxProcessingCapacity) {
+        Shard shard = shardFor(restaurantId);
+        return shard.call(() -> shard.getRestaurantService()
+                .onboardRestaurant(restaurantId, menuItems, maxProcessingCapacity));
+    }
+
+    /**
+     * Update a menu price on the restaurant's shard.
+     * 
+     * @return The updated restaurant
+     */
+    public Restaurant updateItemPrice(String restaurantId, String itemId, double newPrice) {
+        Shard shard = shardFor(restaurantId);
+        return shard.call(() -> shard.getRestaurantService().updateItemPrice(restaurantId, itemId, newPrice));
+    }
+
+    public Restaurant getRestaurant(String restaurantId) {
+        return shardFor(restaurantId).getRestaurantService().getRestaurant(restaurantId);
+    }
+
+    public Map<String, Integer> getItemsServed(String restaurantId) {
+        return shardFor(restaurantId).getRestaurantService().getItemsServed(restaurantId);
+    }
+
+    /**
+     * Set the selection strategy on every shard.
+     * 
+     * @param selectionStrategy The strategy to use for selecting restaurants
+     */
+    public void setSelectionStrategy(RestaurantSelectionStrategy selectionStrategy) {
+        this.selectionStrategy = selectionStrategy;
+        List<Future<Void>> updates = new ArrayList<>(shards.size());
+        for (Shard shard : shards) {
+            updates.add(shard.submit(() -> {
+                shard.getOrderService().setSelectionStrategy(selectionStrategy);
+                return null;
+            }));
+        }
+        for (Future<Void> update : updates) {
+            Shard.await(update);
+        }
+    }
+
+    /**
+     * Place an order on the best restaurant across all shards.
+     * 
+     * @param orderId Unique identifier for the order
+     * @param items List of item IDs in the order
+     * @return The placed order or null if no restaurant can fulfill it
+     */
+    public Order placeOrder(String orderId, List<String> items) {
+        return placeOrder(orderId, Basket.of(items));
+    }
+
+    /**
+     * Place an order with quantities on the best restaurant across all shards.
+     * 
+     * @param orderId Unique identifier for the order
+     * @param basket Items of the order with their quantities
+     * @return The placed order or null if no restaurant can fulfill it
+     */
+    public Order placeOrder(String orderId, Basket basket) {
+        if (orderDirectory.putIfAbsent(orderId, PENDING) != null) {
+            Metrics.duplicateOrderId();
+            throw new IllegalArgumentException("Order with ID " + orderId + " already exists");
+        }
+        
+        try {
+            RestaurantSelectionStrategy strategy = selectionStrategy;
+            while (true) {
+                // Scatter: every shard nominates its best restaurant
+                List<Future<Restaurant>> nominations = new ArrayList<>(shards.size());
+                for (Shard shard : shards) {
+                    nominations.add(shard.submit(() -> strategy.selectRestaurant(shard.getRestaurantService(), basket)));
+                }
+                List<Restaurant> finalists = new ArrayList<>(shards.size());
+                for (Future<Restaurant> nomination : nominations) {
+                    Restaurant nominee = Shard.await(nomination);
+                    if (nominee != null) {
+                        finalists.add(nominee);
+                    }
+                }
+                
+                // Gather: the strategy picks among the nominees, earlier shards winning ties
+                Restaurant winner = strategy.selectRestaurant(finalists, basket);
+                if (winner == null) {
+                    Metrics.orderRejected();
+                    orderDirectory.remove(orderId);
+                    return null;
+                }
+                
+                // The winning shard's own selection lands on its nominee unless its state
+                // changed since; if it ran out of candidates meanwhile, nominate again
+                Shard shard = shardFor(winner.getRestaurantId());
+                Order order = shard.call(() -> shard.getOrderService().placeOrder(orderId, basket));
+                if (order != null) {
+                    orderDirectory.put(orderId, shard.getIndex());
+                    return order;
+                }
+            }
+        } catch (RuntimeException e) {
+            orderDirectory.remove(orderId);
+            throw e;
+        }
+    }
+
+    /**
+     * Dispatch an order on the shard that owns it.
+     * 
+     * @param orderId ID of the order to dispatch
+     * @return The dispatched order
+     */
+    public Order dispatchOrder(String orderId) {
+        Shard shard = ownerOf(orderId);
+        if (shard == null) {
+            throw new IllegalArgumentException("Order with ID " + orderId + " not found");
+        }
+        return shard.call(() -> shard.getOrderService().dispatchOrder(orderId));
+    }
+
+    /**
+     * Get an order by its ID.
+     * 
+     * @param orderId ID of the order
+     * @return The order or null if not found
+     */
+    public Order getOrder(String orderId) {
+        Shard shard = ownerOf(orderId);
+        return shard == null ? null : shard.getOrderService().getOrder(orderId);
+    }
+
+    /**
+     * Get all dispatched orders, grouped by shard and in dispatch order within each.
+     * 
+     * @return List of dispatched orders
+     */
+    public List<Order> getDispatchedOrders() {
+        List<Order> dispatched = new ArrayList<>();
+        for (Shard shard : shards) {
+            dispatched.addAll(shard.getOrderService().getDispatchedOrders());
+        }
+        return dispatched;
+    }
+
+    private Shard ownerOf(String orderId) {
+        Integer index = orderDirectory.get(orderId);
+        return index == null || index == PENDING ? null : shards.get(index);
+    }
+
+    @Override
+    public void close() {
+        for (Shard shard : shards) {
+            shard.close();
+        }
+    }
+}
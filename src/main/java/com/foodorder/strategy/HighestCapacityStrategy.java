@@ -1,22 +1,51 @@
 package com.foodorder.strategy;
 
+import com.foodorder.metrics.Metrics;
+import com.foodorder.model.Basket;
 import com.foodorder.model.Restaurant;
 import java.util.List;
 
 /**
  * Strategy that selects the restaurant with the highest remaining processing capacity.
+ * Candidate lists of at least the parallel threshold are evaluated on the common
+ * fork-join pool.
  * Updated for Java 8.
  */
 public class HighestCapacityStrategy implements RestaurantSelectionStrategy {
+    private final int parallelThreshold;
+
+    public HighestCapacityStrategy() {
+        this(ParallelSelection.DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * @param parallelThreshold Candidate count from which selection runs in parallel
+     */
+    public HighestCapacityStrategy(int parallelThreshold) {
+        this.parallelThreshold = parallelThreshold;
+    }
     
     @Override
     public Restaurant selectRestaurant(List<Restaurant> restaurants, List<String> items) {
+        return selectRestaurant(restaurants, Basket.of(items));
+    }
+    
+    @Override
+    public Restaurant selectRestaurant(List<Restaurant> restaurants, Basket basket) {
+        if (ParallelSelection.worthwhile(restaurants.size(), parallelThreshold)) {
+            Metrics.recordRestaurantsScanned(restaurants.size());
+            return ParallelSelection.select(restaurants, restaurant ->
+                    hasAllItems(restaurant, basket) && restaurant.hasCapacity()
+                            ? restaurant.getMaxProcessingCapacity() - restaurant.getCurrentOrderCount()
+                            : ParallelSelection.INELIGIBLE);
+        }
+        
         Restaurant selectedRestaurant = null;
         int highestRemainingCapacity = -1;
         
         for (Restaurant restaurant : restaurants) {
             // Check if restaurant has all items and capacity
-            if (!hasAllItems(restaurant, items) || !restaurant.hasCapacity()) {
+            if (!hasAllItems(restaurant, basket) || !restaurant.hasCapacity()) {
                 continue;
             }
             
@@ -30,13 +59,14 @@ public class HighestCapacityStrategy implements RestaurantSelectionStrategy {
             }
         }
         
+        Metrics.recordRestaurantsScanned(restaurants.size());
         return selectedRestaurant;
     }
     
     /**
      * Check if a restaurant has all the items in the order.
      */
-    private boolean hasAllItems(Restaurant restaurant, List<String> items) {
+    protected boolean hasAllItems(Restaurant restaurant, List<String> items) {
         for (String itemId : items) {
             if (!restaurant.hasItem(itemId)) {
                 return false;
@@ -44,4 +74,25 @@ public class HighestCapacityStrategy implements RestaurantSelectionStrategy {
         }
         return true;
     }
-} 
\ No newline at end of file
+    
+    /**
+     * Check if a restaurant has all the items in the basket, testing the menu
+     * signature before the exact lookups.
+     */
+    protected boolean hasAllItems(Restaurant restaurant, Basket basket) {
+        if (!restaurant.mayServeAll(basket.getSignature())) {
+            return false;
+        }
+        for (int line = 0; line < basket.size(); line++) {
+            if (!restaurant.hasItem(basket.getItemId(line))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String getName() {
+        return "highest-capacity";
+    }
+}
\ No newline at end of file
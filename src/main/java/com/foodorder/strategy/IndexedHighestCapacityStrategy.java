@@ -0,0 +1,43 @@
+package com.foodorder.strategy;
+
+import com.foodorder.metrics.Metrics;
+import com.foodorder.model.Basket;
+import com.foodorder.model.Restaurant;
+import com.foodorder.service.RestaurantService;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Highest capacity strategy backed by the service's capacity index. Instead of
+ * scanning the whole fleet, it walks restaurants from the highest remaining
+ * capacity down and stops at the first one that serves every item.
+ * Ties resolve to the earliest onboarded restaurant.
+ */
+public class IndexedHighestCapacityStrategy extends HighestCapacityStrategy {
+
+    @Override
+    public Restaurant selectRestaurant(RestaurantService restaurantService, List<String> items) {
+        return selectRestaurant(restaurantService, Basket.of(items));
+    }
+
+    @Override
+    public Restaurant selectRestaurant(RestaurantService restaurantService, Basket basket) {
+        Iterator<Restaurant> restaurants = restaurantService.getCapacityIndex().byRemainingCapacity();
+        int scanned = 0;
+        while (restaurants.hasNext()) {
+            Restaurant restaurant = restaurants.next();
+            scanned++;
+            if (restaurant.hasCapacity() && hasAllItems(restaurant, basket)) {
+                Metrics.recordRestaurantsScanned(scanned);
+                return restaurant;
+            }
+        }
+        Metrics.recordRestaurantsScanned(scanned);
+        return null;
+    }
+
+    @Override
+    public String getName() {
+        return "highest-capacity-indexed";
+    }
+}
\ No newline at end of file
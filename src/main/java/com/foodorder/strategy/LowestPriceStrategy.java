@@ -1,60 +1,221 @@
 package com.foodorder.strategy;
 
-import com.foodorder.model.MenuItem;
+import com.foodorder.metrics.Metrics;
+import com.foodorder.model.Basket;
+import com.foodorder.model.MenuSnapshot;
 import com.foodorder.model.Restaurant;
+import com.foodorder.service.BasketKey;
+import com.foodorder.service.BasketPriceCache;
+import com.foodorder.service.PriceIndex;
+import com.foodorder.service.RestaurantService;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Strategy that selects the restaurant with the lowest total price for the order.
+ * Candidate lists of at least the parallel threshold are evaluated on the common
+ * fork-join pool. Each candidate is priced from one menu snapshot, and the
+ * winner's snapshot is returned by select() so the order is charged that total.
  * Updated for Java 8.
  */
 public class LowestPriceStrategy implements RestaurantSelectionStrategy {
+    private final int parallelThreshold;
+
+    public LowestPriceStrategy() {
+        this(ParallelSelection.DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * @param parallelThreshold Candidate count from which selection runs in parallel
+     */
+    public LowestPriceStrategy(int parallelThreshold) {
+        this.parallelThreshold = parallelThreshold;
+    }
     
     @Override
     public Restaurant selectRestaurant(List<Restaurant> restaurants, List<String> items) {
+        return selectRestaurant(restaurants, Basket.of(items));
+    }
+
+    @Override
+    public Restaurant selectRestaurant(List<Restaurant> restaurants, Basket basket) {
+        return restaurantOf(select(restaurants, basket));
+    }
+
+    private Selection select(List<Restaurant> restaurants, Basket basket) {
+        if (ParallelSelection.worthwhile(restaurants.size(), parallelThreshold)) {
+            Metrics.recordRestaurantsScanned(restaurants.size());
+            List<Restaurant> candidates = ParallelSelection.randomAccess(restaurants);
+            MenuSnapshot[] menus = new MenuSnapshot[candidates.size()];
+            int selected = ParallelSelection.selectIndex(candidates.size(), i -> {
+                Restaurant restaurant = candidates.get(i);
+                if (!hasAllItems(restaurant, basket) || !restaurant.hasCapacity()) {
+                    return ParallelSelection.INELIGIBLE;
+                }
+                menus[i] = restaurant.getMenuSnapshot();
+                return -menus[i].getTotalPrice(basket);
+            });
+            return selected < 0 ? null : new Selection(candidates.get(selected), menus[selected]);
+        }
+        
         Restaurant selectedRestaurant = null;
+        MenuSnapshot selectedMenu = null;
         double lowestPrice = Double.MAX_VALUE;
         
         // Calculate total price for each restaurant
         for (Restaurant restaurant : restaurants) {
             // Check if restaurant has all items and capacity
-            if (!hasAllItems(restaurant, items) || !restaurant.hasCapacity()) {
+            if (!hasAllItems(restaurant, basket) || !restaurant.hasCapacity()) {
                 continue;
             }
             
-            // Calculate total price
-            double totalPrice = calculateTotalPrice(restaurant, items);
+            // Calculate total price at a single menu version
+            MenuSnapshot menu = restaurant.getMenuSnapshot();
+            double totalPrice = menu.getTotalPrice(basket);
             
             // Update selected restaurant if this one has a lower price
             if (totalPrice < lowestPrice) {
                 lowestPrice = totalPrice;
                 selectedRestaurant = restaurant;
+                selectedMenu = menu;
             }
         }
         
-        return selectedRestaurant;
+        Metrics.recordRestaurantsScanned(restaurants.size());
+        return selectedRestaurant == null ? null : new Selection(selectedRestaurant, selectedMenu);
     }
-    
+
+    @Override
+    public Restaurant selectRestaurant(RestaurantService restaurantService, List<String> items) {
+        return selectRestaurant(restaurantService, Basket.of(items));
+    }
+
+    @Override
+    public Restaurant selectRestaurant(RestaurantService restaurantService, Basket basket) {
+        return restaurantOf(select(restaurantService, basket));
+    }
+
     /**
-     * Check if a restaurant has all the items in the order.
+     * Select using the per-item price leaderboards instead of scanning every
+     * candidate. A single-item order takes the first restaurant with capacity on
+     * the item's leaderboard. A multi-item order walks the leaderboards of its items
+     * in round-robin (Fagin's threshold algorithm): every restaurant met is priced
+     * in full, and the walk stops as soon as the quantity-weighted sum of the prices
+     * at the current leaderboard positions exceeds the best total found, since no
+     * restaurant not yet met can be cheaper. Ties go to the restaurant onboarded first.
      */
-    private boolean hasAllItems(Restaurant restaurant, List<String> items) {
-        for (String itemId : items) {
-            if (!restaurant.hasItem(itemId)) {
-                return false;
+    @Override
+    public Selection select(RestaurantService restaurantService, Basket basket) {
+        if (basket.isEmpty()) {
+            return select(restaurantService.getAllRestaurants(), basket);
+        }
+        PriceIndex priceIndex = restaurantService.getPriceIndex();
+        if (basket.size() == 1) {
+            return cheapestWithCapacity(priceIndex.byPrice(basket.getItemId(0)), basket.getItemId(0));
+        }
+        
+        int lists = basket.size();
+        List<Iterator<PriceIndex.Entry>> cursors = new ArrayList<>(lists);
+        for (int line = 0; line < lists; line++) {
+            cursors.add(priceIndex.byPrice(basket.getItemId(line)));
+        }
+        
+        BasketPriceCache cache = restaurantService.getBasketPriceCache();
+        BasketKey basketKey = BasketKey.of(basket);
+        Set<Restaurant> seen = new HashSet<>();
+        double[] lastPrice = new double[lists];
+        Restaurant selectedRestaurant = null;
+        MenuSnapshot selectedMenu = null;
+        double lowestPrice = Double.MAX_VALUE;
+        long selectedSequence = Long.MAX_VALUE;
+        
+        while (true) {
+            for (int line = 0; line < lists; line++) {
+                Iterator<PriceIndex.Entry> cursor = cursors.get(line);
+                if (!cursor.hasNext()) {
+                    // A restaurant serving every item is on every leaderboard, so all
+                    // of them have been met through this exhausted one
+                    Metrics.recordRestaurantsScanned(seen.size());
+                    return selectedRestaurant == null ? null : new Selection(selectedRestaurant, selectedMenu);
+                }
+                PriceIndex.Entry entry = cursor.next();
+                lastPrice[line] = entry.getPrice();
+                Restaurant restaurant = entry.getRestaurant();
+                if (!seen.add(restaurant) || !restaurant.hasCapacity() || !hasAllItems(restaurant, basket)) {
+                    continue;
+                }
+                
+                MenuSnapshot menu = restaurant.getMenuSnapshot();
+                double totalPrice = cache.getTotalPrice(restaurant, menu, basketKey);
+                if (totalPrice < lowestPrice || (totalPrice == lowestPrice && entry.getSequence() < selectedSequence)) {
+                    lowestPrice = totalPrice;
+                    selectedRestaurant = restaurant;
+                    selectedMenu = menu;
+                    selectedSequence = entry.getSequence();
+                }
+            }
+            
+            double threshold = 0;
+            for (int line = 0; line < lists; line++) {
+                threshold += basket.getQuantity(line) * lastPrice[line];
+            }
+            if (threshold > lowestPrice) {
+                Metrics.recordRestaurantsScanned(seen.size());
+                return new Selection(selectedRestaurant, selectedMenu);
             }
         }
-        return true;
+    }
+
+    /**
+     * Take the first restaurant with capacity on a single item's leaderboard. An
+     * entry priced below the restaurant's current menu is left behind by a price
+     * increase and its repositioned entry comes later, so it is skipped; otherwise
+     * the restaurant is at most as expensive as its entry and still the cheapest.
+     */
+    private Selection cheapestWithCapacity(Iterator<PriceIndex.Entry> leaderboard, String itemId) {
+        int scanned = 0;
+        while (leaderboard.hasNext()) {
+            PriceIndex.Entry entry = leaderboard.next();
+            Restaurant restaurant = entry.getRestaurant();
+            scanned++;
+            if (!restaurant.hasCapacity()) {
+                continue;
+            }
+            MenuSnapshot menu = restaurant.getMenuSnapshot();
+            if (menu.getPrice(itemId) <= entry.getPrice()) {
+                Metrics.recordRestaurantsScanned(scanned);
+                return new Selection(restaurant, menu);
+            }
+        }
+        Metrics.recordRestaurantsScanned(scanned);
+        return null;
+    }
+
+    private static Restaurant restaurantOf(Selection selection) {
+        return selection == null ? null : selection.getRestaurant();
     }
     
     /**
-     * Calculate the total price of the order at a restaurant.
+     * Check if a restaurant has all the items in the order. Most restaurants
+     * missing an item are rejected on the menu signature without a lookup.
      */
-    private double calculateTotalPrice(Restaurant restaurant, List<String> items) {
-        double total = 0.0;
-        for (String itemId : items) {
-            total += restaurant.getMenuItem(itemId).getPrice();
+    private boolean hasAllItems(Restaurant restaurant, Basket basket) {
+        if (!restaurant.mayServeAll(basket.getSignature())) {
+            return false;
         }
-        return total;
+        for (int line = 0; line < basket.size(); line++) {
+            if (!restaurant.hasItem(basket.getItemId(line))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String getName() {
+        return "lowest-price";
     }
-} 
\ No newline at end of file
+}
\ No newline at end of file
@@ -0,0 +1,128 @@
+package com.foodorder.strategy;
+
+import com.foodorder.model.Restaurant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.IntToDoubleFunction;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Fork-join evaluation of a candidate list for the selection strategies.
+ * 
+ * The list is split in halves until a chunk is small enough to scan sequentially.
+ * Each chunk keeps its best-scoring restaurant and the halves are reduced
+ * pairwise. On equal scores the restaurant earlier in the list wins, so the result
+ * is the one the sequential loops pick.
+ */
+final class ParallelSelection {
+    /**
+     * Fleet size from which selection runs in parallel, overridable with the
+     * foodorder.parallelThreshold system property.
+     */
+    static final int DEFAULT_THRESHOLD = Integer.getInteger("foodorder.parallelThreshold", 20_000);
+
+    /**
+     * Score of a restaurant that cannot take the order.
+     */
+    static final double INELIGIBLE = Double.NEGATIVE_INFINITY;
+
+    private static final int MIN_CHUNK = 2_048;
+
+    private ParallelSelection() {
+    }
+
+    /**
+     * Check whether a candidate list is large enough to evaluate in parallel.
+     * With a single worker thread, splitting only adds overhead.
+     */
+    static boolean worthwhile(int candidates, int threshold) {
+        return candidates >= threshold && ForkJoinPool.getCommonPoolParallelism() > 1;
+    }
+
+    /**
+     * Select the restaurant with the highest score on the common fork-join pool.
+     * 
+     * @param restaurants Candidate restaurants
+     * @param score Score of a restaurant, higher is better, INELIGIBLE to skip it
+     * @return The first restaurant with the highest score, or null if none is eligible
+     */
+    static Restaurant select(List<Restaurant> restaurants, ToDoubleFunction<Restaurant> score) {
+        List<Restaurant> candidates = randomAccess(restaurants);
+        int index = selectIndex(candidates.size(), i -> score.applyAsDouble(candidates.get(i)));
+        return index < 0 ? null : candidates.get(index);
+    }
+
+    /**
+     * Select the position with the highest score on the common fork-join pool.
+     * Every position is scored exactly once; scoring that records per-position
+     * state is visible to the caller once this returns.
+     * 
+     * @param count Number of positions
+     * @param score Score of a position, higher is better, INELIGIBLE to skip it
+     * @return The first position with the highest score, or -1 if none is eligible
+     */
+    static int selectIndex(int count, IntToDoubleFunction score) {
+        int chunk = Math.max(MIN_CHUNK, count / (ForkJoinPool.getCommonPoolParallelism() * 4));
+        return ForkJoinPool.commonPool().invoke(new Chunk(score, 0, count, chunk)).index;
+    }
+
+    /**
+     * Get a list with constant-time positional access, copying only if needed.
+     */
+    static List<Restaurant> randomAccess(List<Restaurant> restaurants) {
+        return restaurants instanceof RandomAccess ? restaurants : new ArrayList<>(restaurants);
+    }
+
+    private static final class Best {
+        private final int index;
+        private final double score;
+
+        Best(int index, double score) {
+            this.index = index;
+            this.score = score;
+        }
+    }
+
+    private static final class Chunk extends RecursiveTask<Best> {
+        private static final long serialVersionUID = 1L;
+
+        private final IntToDoubleFunction score;
+        private final int from;
+        private final int to;
+        private final int chunk;
+
+        Chunk(IntToDoubleFunction score, int from, int to, int chunk) {
+            this.score = score;
+            this.from = from;
+            this.to = to;
+            this.chunk = chunk;
+        }
+
+        @Override
+        protected Best compute() {
+            if (to - from <= chunk) {
+                int bestIndex = -1;
+                double bestScore = INELIGIBLE;
+                for (int i = from; i < to; i++) {
+                    double candidateScore = score.applyAsDouble(i);
+                    if (candidateScore > bestScore) {
+                        bestScore = candidateScore;
+                        bestIndex = i;
+                    }
+                }
+                return new Best(bestIndex, bestScore);
+            }
+            
+            int middle = (from + to) >>> 1;
+            Chunk right = new Chunk(score, middle, to, chunk);
+            right.fork();
+            Best left = new Chunk(score, from, middle, chunk).compute();
+            Best rightBest = right.join();
+            // The left half comes first in the list, so it keeps ties
+            return rightBest.score > left.score ? rightBest : left;
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.foodorder.strategy;
 
+import com.foodorder.model.Basket;
 import com.foodorder.model.Restaurant;
+import com.foodorder.service.RestaurantService;
 import java.util.List;
 
 /**
@@ -16,4 +18,61 @@ public interface RestaurantSelectionStrategy {
      * @return Selected restaurant or null if no restaurant can fulfill the order
      */
     Restaurant selectRestaurant(List<Restaurant> restaurants, List<String> items);
+
+    /**
+     * Selects a restaurant using the service's item index, so only restaurants
+     * serving every item of the order are evaluated.
+     * 
+     * @param restaurantService Service holding the onboarded restaurants
+     * @param items List of items in the order
+     * @return Selected restaurant or null if no restaurant can fulfill the order
+     */
+    default Restaurant selectRestaurant(RestaurantService restaurantService, List<String> items) {
+        return selectRestaurant(restaurantService.findRestaurantsServingAll(items), items);
+    }
+
+    /**
+     * Selects a restaurant from the given list for an order with quantities.
+     * 
+     * @param restaurants List of available restaurants
+     * @param basket Items of the order with their quantities
+     * @return Selected restaurant or null if no restaurant can fulfill the order
+     */
+    default Restaurant selectRestaurant(List<Restaurant> restaurants, Basket basket) {
+        return selectRestaurant(restaurants, basket.asList());
+    }
+
+    /**
+     * Selects a restaurant for an order with quantities using the service's item index.
+     * 
+     * @param restaurantService Service holding the onboarded restaurants
+     * @param basket Items of the order with their quantities
+     * @return Selected restaurant or null if no restaurant can fulfill the order
+     */
+    default Restaurant selectRestaurant(RestaurantService restaurantService, Basket basket) {
+        return selectRestaurant(restaurantService.findRestaurantsServingAll(basket), basket);
+    }
+
+    /**
+     * Selects a restaurant for an order with quantities, together with the menu
+     * snapshot the choice was priced at. Strategies that do not compare prices
+     * return the winner's snapshot at the time it was selected.
+     * 
+     * @param restaurantService Service holding the onboarded restaurants
+     * @param basket Items of the order with their quantities
+     * @return The selection or null if no restaurant can fulfill the order
+     */
+    default Selection select(RestaurantService restaurantService, Basket basket) {
+        Restaurant restaurant = selectRestaurant(restaurantService, basket);
+        return restaurant == null ? null : new Selection(restaurant, restaurant.getMenuSnapshot());
+    }
+
+    /**
+     * Get the name the strategy is selected by, as accepted by StrategyFactory.
+     * 
+     * @return Strategy name
+     */
+    default String getName() {
+        return getClass().getSimpleName();
+    }
 } 
\ No newline at end of file
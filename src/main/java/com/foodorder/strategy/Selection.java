@@ -0,0 +1,27 @@
+package com.foodorder.strategy;
+
+import com.foodorder.model.MenuSnapshot;
+import com.foodorder.model.Restaurant;
+
+/**
+ * A restaurant chosen for an order, with the menu snapshot the choice was priced
+ * at. Pricing the order from that snapshot charges the total the strategy compared,
+ * even if the restaurant's prices changed since.
+ */
+public final class Selection {
+    private final Restaurant restaurant;
+    private final MenuSnapshot menu;
+
+    public Selection(Restaurant restaurant, MenuSnapshot menu) {
+        this.restaurant = restaurant;
+        this.menu = menu;
+    }
+
+    public Restaurant getRestaurant() {
+        return restaurant;
+    }
+
+    public MenuSnapshot getMenu() {
+        return menu;
+    }
+}
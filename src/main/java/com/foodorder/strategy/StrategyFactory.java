@@ -18,6 +18,8 @@ public class StrategyFactory {
             return new LowestPriceStrategy();
         } else if ("highest-capacity".equals(strategy)) {
             return new HighestCapacityStrategy();
+        } else if ("highest-capacity-indexed".equals(strategy)) {
+            return new IndexedHighestCapacityStrategy();
         } else {
             throw new IllegalArgumentException("Unknown strategy: " + strategyName);
         }
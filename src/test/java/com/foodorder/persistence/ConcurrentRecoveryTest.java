@@ -0,0 +1,111 @@
+package com.foodorder.persistence;
+
+import com.foodorder.model.MenuItem;
+import com.foodorder.model.Order;
+import com.foodorder.model.Restaurant;
+import com.foodorder.service.OrderService;
+import com.foodorder.service.RestaurantService;
+import com.foodorder.strategy.StrategyFactory;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Crash-recovery check for concurrent writers: several threads place and dispatch
+ * orders on a few small restaurants while prices change, with expiry and automatic
+ * snapshots running. The process then "crashes" after the last commit, without
+ * closing the log, and the state recovered from disk must equal the live state.
+ *
+ * Run with: java -cp out:out-test com.foodorder.persistence.ConcurrentRecoveryTest
+ */
+public class ConcurrentRecoveryTest {
+    private static final int THREADS = 8;
+    private static final int ORDERS_PER_THREAD = 20_000;
+    private static final int RESTAURANTS = 4;
+    private static final int CAPACITY = 2;
+
+    public static void main(String[] args) throws Exception {
+        for (int round = 0; round < 5; round++) {
+            run(Files.createTempDirectory("foodorder-recovery"));
+        }
+        System.out.println("ConcurrentRecoveryTest passed");
+    }
+
+    private static void run(Path dataDirectory) throws Exception {
+        RestaurantService restaurantService = new RestaurantService();
+        OrderService orderService = new OrderService(restaurantService, StrategyFactory.createStrategy("lowest-price"));
+        PersistenceManager persistence = new PersistenceManager(dataDirectory, restaurantService, orderService,
+                5_000, false);
+        persistence.recover();
+        for (int r = 0; r < RESTAURANTS; r++) {
+            restaurantService.onboardRestaurant("restaurant" + r,
+                    Arrays.asList(new MenuItem("pizza", 10 + r), new MenuItem("salad", 5)), CAPACITY);
+        }
+        orderService.setReservationTimeout(2);
+
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            threads.add(new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < ORDERS_PER_THREAD; i++) {
+                    String orderId = "order" + thread + "-" + i;
+                    if (random.nextInt(100) == 0) {
+                        restaurantService.updateItemPrice("restaurant" + random.nextInt(RESTAURANTS), "pizza",
+                                1 + random.nextInt(20));
+                    }
+                    if (orderService.placeOrder(orderId, Arrays.asList("pizza", "salad")) != null
+                            && random.nextBoolean()) {
+                        try {
+                            orderService.dispatchOrder(orderId);
+                        } catch (IllegalArgumentException e) {
+                            // Expired before it could be dispatched
+                        }
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // Stop the expiry timer and crash right after the last commit
+        orderService.setReservationTimeout(0);
+        persistence.sync();
+        restaurantService.setStateChangeListener(null);
+        orderService.setStateChangeListener(null);
+
+        RestaurantService recoveredRestaurants = new RestaurantService();
+        OrderService recoveredOrders = new OrderService(recoveredRestaurants, StrategyFactory.createStrategy("lowest-price"));
+        new PersistenceManager(dataDirectory, recoveredRestaurants, recoveredOrders, 0, false).recover();
+
+        check(orderService.getAllOrders().size() == recoveredOrders.getAllOrders().size(), "order count");
+        check(orderService.getDispatchedOrderCount() == recoveredOrders.getDispatchedOrderCount(), "dispatched count");
+        for (Order order : orderService.getAllOrders()) {
+            Order recovered = recoveredOrders.getOrder(order.getOrderId());
+            check(recovered != null && recovered.isDispatched() == order.isDispatched()
+                    && recovered.getTotalAmount() == order.getTotalAmount(), "order " + order.getOrderId());
+        }
+        for (Restaurant restaurant : restaurantService.getAllRestaurants()) {
+            Restaurant recovered = recoveredRestaurants.getRestaurant(restaurant.getRestaurantId());
+            String id = restaurant.getRestaurantId();
+            check(recovered.getCurrentOrderCount() == restaurant.getCurrentOrderCount(), id + " load");
+            check(recovered.getCurrentOrderCount() <= recovered.getMaxProcessingCapacity(), id + " capacity");
+            check(recovered.getItemsServed().equals(restaurant.getItemsServed()), id + " items served");
+            check(recovered.getMenuSnapshot().getPrices().equals(restaurant.getMenuSnapshot().getPrices()), id + " prices");
+        }
+    }
+
+    private static void check(boolean condition, String what) {
+        if (!condition) {
+            throw new AssertionError("Recovered state differs: " + what);
+        }
+    }
+}